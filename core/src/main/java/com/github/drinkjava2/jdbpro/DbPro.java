@@ -231,6 +231,8 @@ public class DbPro extends ImprovedQueryRunner implements NormalJdbcTool {// NOS
 				predSQL.disableHandlers((Object[]) sqItem.getParameters());
 			} else if (SqlOption.SWITCHTO.equals(sqlItemType)) {
 				predSQL.setSwitchTo((DbPro) sqItem.getParameters()[0]);
+			} else if (SqlOption.FETCH_SIZE.equals(sqlItemType)) {
+				predSQL.setFetchSize((Integer) sqItem.getParameters()[0]);
 			} else
 				return false;
 		} else if (item instanceof Text)
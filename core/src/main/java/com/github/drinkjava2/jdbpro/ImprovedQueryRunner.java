@@ -33,6 +33,7 @@ import org.apache.commons.dbutils.handlers.ScalarHandler;
 import com.github.drinkjava2.jdbpro.DbProLogger.DefaultDbProLogger;
 import com.github.drinkjava2.jdbpro.template.BasicSqlTemplate;
 import com.github.drinkjava2.jdbpro.template.SqlTemplateEngine;
+import com.github.drinkjava2.jtransactions.AfterTransactionCallbackSupport;
 import com.github.drinkjava2.jtransactions.ConnectionManager;
 
 /**
@@ -86,6 +87,13 @@ public class ImprovedQueryRunner extends QueryRunner {
 		}
 	};
 
+	/**
+	 * A ThreadLocal fetch size used by current query's statement, it's removed
+	 * once statement prepared, so queries run inside ResultSetHandler (for
+	 * example an EntityVisitor) do not inherit it
+	 */
+	private ThreadLocal<Integer> queryFetchSize = new ThreadLocal<Integer>();
+
 	/**
 	 * A ThreadLocal type cache to store batch SQL and parameters
 	 */
@@ -131,7 +139,13 @@ public class ImprovedQueryRunner extends QueryRunner {
 	protected PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException {
 		if (this.getAllowShowSQL() && !batchEnabled.get())
 			logger.info(formatSqlForLoggerOutput(sql));
-		return super.prepareStatement(conn, sql);
+		PreparedStatement stmt = super.prepareStatement(conn, sql);
+		Integer fetchSize = queryFetchSize.get();
+		if (fetchSize != null) {
+			queryFetchSize.remove();
+			stmt.setFetchSize(fetchSize);
+		}
+		return stmt;
 	}
 
 	@Override
@@ -236,6 +250,7 @@ public class ImprovedQueryRunner extends QueryRunner {
 						result = ((int[]) batch(first.getConnection(), first.getSql(), allParams)).length;
 					else
 						result = ((int[]) batch(first.getSql(), allParams)).length;
+					invalidateTableTags(first.getSql());
 				} catch (SQLException e) {
 					throw new DbProRuntimeException(e);
 				}
@@ -250,6 +265,7 @@ public class ImprovedQueryRunner extends QueryRunner {
 								allParams);
 					else
 						result = insertBatch(first.getSql(), first.getResultSetHandler(), allParams);
+					invalidateTableTags(first.getSql());
 				} catch (SQLException e) {
 					throw new DbProRuntimeException(e);
 				}
@@ -453,15 +469,37 @@ public class ImprovedQueryRunner extends QueryRunner {
 	}
 
 	private Object runWriteOperations(ImprovedQueryRunner dbPro, PreparedSQL ps) {
+		Object result;
 		switch (ps.getOperationType()) {
 		case INSERT:
-			return dbPro.runInsert(ps);
+			result = dbPro.runInsert(ps);
+			break;
 		case EXECUTE:
-			return dbPro.runExecute(ps);
+			result = dbPro.runExecute(ps);
+			break;
 		case UPDATE:
-			return dbPro.runUpdate(ps);
+			result = dbPro.runUpdate(ps);
+			break;
+		default:
+			throw new DbProRuntimeException("Should never run to here");
 		}
-		throw new DbProRuntimeException("Should never run to here");
+		dbPro.invalidateTableTags(ps.getSql());
+		return result;
+	}
+
+	/**
+	 * Invalidate cached query results of tables changed by given write SQL, if in
+	 * a transaction, invalidate again after transaction end if ConnectionManager
+	 * implements AfterTransactionCallbackSupport, see TableTags
+	 */
+	protected void invalidateTableTags(String sql) {
+		String[] tags = TableTags.writeTables(sql);
+		TableTags.invalidate(tags);
+		DataSource ds = getDataSource();
+		if (ds != null && connectionManager instanceof AfterTransactionCallbackSupport
+				&& connectionManager.isInTransaction(ds))
+			((AfterTransactionCallbackSupport) connectionManager).addAfterTransactionCallback(ds,
+					new TableTags.Invalidator(tags));
 	}
 
 	/**
@@ -473,6 +511,8 @@ public class ImprovedQueryRunner extends QueryRunner {
 	 */
 	protected <T> T runQuery(PreparedSQL ps) {
 		if (ps.getResultSetHandler() != null) {
+			if (ps.getFetchSize() != null)
+				queryFetchSize.set(ps.getFetchSize());
 			try {
 				if (ps.getConnection() != null) {
 					if (ps.getParams() != null)
@@ -487,6 +527,9 @@ public class ImprovedQueryRunner extends QueryRunner {
 				}
 			} catch (SQLException e) {
 				throw new DbProRuntimeException(e);
+			} finally {
+				if (ps.getFetchSize() != null)
+					queryFetchSize.remove();
 			}
 		} else
 			throw new DbProRuntimeException("A ResultSetHandler is required by query method");
@@ -635,7 +678,9 @@ public class ImprovedQueryRunner extends QueryRunner {
 	 */
 	public int[] nBatch(String sql, List<Object[]> params) {
 		try {
-			return batch(sql, objectsListToArray2D(params));
+			int[] result = batch(sql, objectsListToArray2D(params));
+			invalidateTableTags(sql);
+			return result;
 		} catch (SQLException e) {
 			throw new DbProRuntimeException(e);
 		}
@@ -655,7 +700,9 @@ public class ImprovedQueryRunner extends QueryRunner {
 	 */
 	public int[] nBatch(Connection conn, String sql, List<Object[]> params) throws SQLException {
 		try {
-			return batch(conn, sql, objectsListToArray2D(params));
+			int[] result = batch(conn, sql, objectsListToArray2D(params));
+			invalidateTableTags(sql);
+			return result;
 		} catch (SQLException e) {
 			throw new DbProRuntimeException(e);
 		}
@@ -677,7 +724,9 @@ public class ImprovedQueryRunner extends QueryRunner {
 	 */
 	public <T> T nInsertBatch(String sql, ResultSetHandler<T> rsh, List<Object[]> params) {
 		try {
-			return insertBatch(sql, rsh, objectsListToArray2D(params));
+			T result = insertBatch(sql, rsh, objectsListToArray2D(params));
+			invalidateTableTags(sql);
+			return result;
 		} catch (SQLException e) {
 			throw new DbProRuntimeException(e);
 		}
@@ -701,7 +750,9 @@ public class ImprovedQueryRunner extends QueryRunner {
 	 */
 	public <T> T nInsertBatch(Connection conn, String sql, ResultSetHandler<T> rsh, List<Object[]> params) {
 		try {
-			return this.insertBatch(conn, sql, rsh, objectsListToArray2D(params));
+			T result = this.insertBatch(conn, sql, rsh, objectsListToArray2D(params));
+			invalidateTableTags(sql);
+			return result;
 		} catch (SQLException e) {
 			throw new DbProRuntimeException(e);
 		}
@@ -155,6 +155,14 @@ public abstract class JDBPRO {
 		return new SqlItem(SqlOption.SWITCHTO, dpPro);
 	}
 
+	/**
+	 * Set JDBC fetch size of current query, for big result set usually use with a
+	 * streaming ResultSetHandler, note MySQL need Integer.MIN_VALUE to stream
+	 */
+	public static SqlItem fetchSize(int fetchSize) {
+		return new SqlItem(SqlOption.FETCH_SIZE, fetchSize);
+	}
+
 	/**
 	 * For tXxxx style templateEngine use, return a SqlItemType.PUT type SqlItem
 	 * instance,
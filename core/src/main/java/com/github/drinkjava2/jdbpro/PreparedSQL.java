@@ -73,6 +73,9 @@ public class PreparedSQL {
 	/** Optional,ResultSetHandler instance, only allow have one */
 	private ResultSetHandler<?> resultSetHandler;
 
+	/** Optional, JDBC fetch size of query statement */
+	private Integer fetchSize;
+
 	/** Handers in this list will disabled */
 	private List<Class<?>> disabledHandlers;
 
@@ -476,4 +479,12 @@ public class PreparedSQL {
 		this.ignoreNull = ignoreNull;
 	}
 
+	public Integer getFetchSize() {
+		return fetchSize;
+	}
+
+	public void setFetchSize(Integer fetchSize) {
+		this.fetchSize = fetchSize;
+	}
+
 }
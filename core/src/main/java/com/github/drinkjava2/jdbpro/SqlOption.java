@@ -68,6 +68,12 @@ public enum SqlOption {
 	/** Mark a USE_TEMPLATE SqlOption, Force use template style */
 	USE_TEMPLATE,
 
+	/**
+	 * Mark a FETCH_SIZE SqlItem, set JDBC fetch size of query statement, usually
+	 * used to stream big result set
+	 */
+	FETCH_SIZE,
+
 	// ------Sql Operation type--------
 	/** Mark a EXECUTE SqlOption */
 	EXECUTE,
@@ -0,0 +1,299 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdbpro;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.drinkjava2.jdialects.model.TableModel;
+
+/**
+ * TableTags keep a version number for each table name (a "tag"), used by
+ * cache handlers to invalidate cached query results when tables changed:
+ *
+ * <pre>
+ * 1. Before run a query, cache handler call readTables to get tags of tables
+ *    the query read, and call versionsOf to take a snapshot of their versions.
+ * 2. ImprovedQueryRunner call invalidate after each INSERT/UPDATE/EXECUTE SQL
+ *    (and again after transaction end if ConnectionManager implements
+ *    AfterTransactionCallbackSupport), which increase versions of tables the
+ *    SQL written.
+ * 3. A cached result is only valid if isCurrent return true.
+ * </pre>
+ *
+ * Table names are got by lightweight parse FROM/JOIN/INTO/UPDATE words of SQL,
+ * if can not find which table a write SQL changed (for example DDL, stored
+ * procedure call or multiple tables UPDATE/DELETE), all tags are invalidated.
+ * Versions are global, same table name in different databases share one
+ * version, this only cause extra invalidation. <br/>
+ *
+ * Note: if ConnectionManager not implement AfterTransactionCallbackSupport
+ * (e.g. JFinalTxConnectionManager), a result cached by other thread during a
+ * transaction may be stale after the transaction committed, until it expired.
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public abstract class TableTags {// NOSONAR
+	private static final String[] EMPTY = new String[0];
+
+	/** Parse results of too many different SQL will not be cached */
+	private static final int MAX_CACHED_SQLS = 4096;
+
+	private static final Set<String> NOT_ALIAS = new HashSet<String>(Arrays.asList("where", "join", "left", "right",
+			"inner", "outer", "full", "cross", "natural", "straight_join", "on", "using", "group", "order", "having",
+			"limit", "offset", "fetch", "for", "union", "except", "intersect", "minus", "window", "set", "values",
+			"select", "with", "lateral", "start", "connect"));
+
+	/** Words after target table (or its alias) mean a multiple tables write */
+	private static final Set<String> MULTI_TABLES = new HashSet<String>(Arrays.asList(",", "join", "left", "right",
+			"inner", "outer", "full", "cross", "natural", "straight_join"));
+
+	/** Version increased when all tags invalidated */
+	private static final AtomicLong globalVersion = new AtomicLong();
+	private static final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<String, AtomicLong>();
+
+	private static final Map<String, String[]> readTablesCache = new ConcurrentHashMap<String, String[]>();
+	private static final Map<String, String[]> writeTablesCache = new ConcurrentHashMap<String, String[]>();
+
+	/** A Runnable invalidate given tags, equal if tags equal */
+	public static class Invalidator implements Runnable {
+		private final String[] tags;
+
+		public Invalidator(String[] tags) {
+			this.tags = tags;
+		}
+
+		@Override
+		public void run() {
+			invalidate(tags);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			return obj instanceof Invalidator && Arrays.equals(tags, ((Invalidator) obj).tags);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(tags);
+		}
+	}
+
+	/** Return tags of tables a query PreparedSQL read, include its TableModels */
+	public static String[] readTables(PreparedSQL ps) {
+		String[] tags = readTables(ps.getSql());
+		Object[] models = ps.getModels();
+		if (models == null || models.length == 0)
+			return tags;
+		Set<String> set = new LinkedHashSet<String>(Arrays.asList(tags));
+		for (Object model : models)
+			if (model instanceof TableModel && ((TableModel) model).getTableName() != null)
+				set.add(tagOf(((TableModel) model).getTableName()));
+		return set.size() == tags.length ? tags : set.toArray(new String[set.size()]);
+	}
+
+	/** Return tags of tables a query SQL read */
+	public static String[] readTables(String sql) {
+		if (sql == null)
+			return EMPTY;
+		String[] tags = readTablesCache.get(sql);
+		if (tags == null) {
+			tags = parseReadTables(tokens(sql));
+			if (readTablesCache.size() < MAX_CACHED_SQLS)
+				readTablesCache.put(sql, tags);
+		}
+		return tags;
+	}
+
+	/**
+	 * Return tags of tables a write SQL changed, return null if can not find which
+	 * table changed, null means all tags
+	 */
+	public static String[] writeTables(String sql) {
+		if (sql == null)
+			return null;// NOSONAR
+		String[] tags = writeTablesCache.get(sql);
+		if (tags == null) {
+			tags = parseWriteTables(tokens(sql));
+			if (tags == null)
+				return null;// NOSONAR
+			if (writeTablesCache.size() < MAX_CACHED_SQLS)
+				writeTablesCache.put(sql, tags);
+		}
+		return tags;
+	}
+
+	/** Return a snapshot of versions of given tags */
+	public static long[] versionsOf(String[] tags) {
+		long[] result = new long[tags.length + 1];
+		result[0] = globalVersion.get();
+		for (int i = 0; i < tags.length; i++)
+			result[i + 1] = versionCounter(tags[i]).get();
+		return result;
+	}
+
+	/** Return true if versions of given tags not changed since snapshot taken */
+	public static boolean isCurrent(String[] tags, long[] snapshot) {
+		if (snapshot[0] != globalVersion.get())
+			return false;
+		for (int i = 0; i < tags.length; i++)
+			if (snapshot[i + 1] != versionCounter(tags[i]).get())
+				return false;
+		return true;
+	}
+
+	/** Invalidate given tags, if tags is null, invalidate all tags */
+	public static void invalidate(String... tags) {
+		if (tags == null) {
+			globalVersion.incrementAndGet();
+			return;
+		}
+		for (String tag : tags)
+			versionCounter(tag).incrementAndGet();
+	}
+
+	/** Invalidate all tags */
+	public static void invalidateAll() {
+		globalVersion.incrementAndGet();
+	}
+
+	/** Return the tag of a table name, i.e., lower case name without schema and quotes */
+	public static String tagOf(String tableName) {
+		String name = tableName;
+		int dot = name.lastIndexOf('.');
+		if (dot >= 0)
+			name = name.substring(dot + 1);
+		StringBuilder sb = new StringBuilder(name.length());
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if (c != '"' && c != '`' && c != '[' && c != ']')
+				sb.append(Character.toLowerCase(c));
+		}
+		return sb.toString();
+	}
+
+	private static AtomicLong versionCounter(String tag) {
+		AtomicLong counter = versions.get(tag);
+		if (counter == null) {
+			AtomicLong newCounter = new AtomicLong();
+			counter = versions.putIfAbsent(tag, newCounter);
+			if (counter == null)
+				counter = newCounter;
+		}
+		return counter;
+	}
+
+	private static String[] parseReadTables(List<String> tokens) {
+		Set<String> tags = new LinkedHashSet<String>();
+		for (int i = 0; i < tokens.size(); i++) {
+			String word = tokens.get(i);
+			if (!"from".equals(word) && !"join".equals(word))
+				continue;
+			int j = i + 1;
+			while (j < tokens.size() && isIdentifier(tokens.get(j))) {
+				tags.add(tagOf(tokens.get(j++)));
+				if (j < tokens.size() && "as".equals(tokens.get(j)))
+					j += 2;
+				else if (j < tokens.size() && isIdentifier(tokens.get(j)) && !NOT_ALIAS.contains(tokens.get(j)))
+					j++;
+				if (!"from".equals(word) || j >= tokens.size() || !",".equals(tokens.get(j)))
+					break;
+				j++;
+			}
+		}
+		return tags.toArray(new String[tags.size()]);
+	}
+
+	private static String[] parseWriteTables(List<String> tokens) {// NOSONAR
+		if (tokens.isEmpty())
+			return null;// NOSONAR
+		String first = tokens.get(0);
+		int i = 1;
+		if ("insert".equals(first) || "replace".equals(first) || "merge".equals(first)) {
+			while (i < tokens.size() && i < 4 && !"into".equals(tokens.get(i)))
+				i++;
+			i++;
+		} else if ("update".equals(first)) {
+			while (i < tokens.size() && ("low_priority".equals(tokens.get(i)) || "ignore".equals(tokens.get(i))
+					|| "only".equals(tokens.get(i))))
+				i++;
+		} else if ("delete".equals(first)) {
+			if (i < tokens.size() && !"from".equals(tokens.get(i)))
+				return null;// NOSONAR multiple tables delete
+			i++;
+		} else if ("truncate".equals(first)) {
+			if (i < tokens.size() && "table".equals(tokens.get(i)))
+				i++;
+		} else
+			return null;// NOSONAR
+		if (i >= tokens.size() || !isIdentifier(tokens.get(i)))
+			return null;// NOSONAR
+		String table = tokens.get(i++);
+		if (i < tokens.size() && "as".equals(tokens.get(i)))
+			i += 2;
+		else if (i < tokens.size() && isIdentifier(tokens.get(i)) && !NOT_ALIAS.contains(tokens.get(i)))
+			i++;
+		if (i < tokens.size() && MULTI_TABLES.contains(tokens.get(i)))
+			return null;// NOSONAR multiple tables write, e.g. "update a, b set b.x=?"
+		return new String[] { tagOf(table) };
+	}
+
+	private static boolean isIdentifier(String token) {
+		char c = token.charAt(0);
+		return c != '(' && c != ')' && c != ',' && c != '?' && c != '=';
+	}
+
+	/** Split SQL to lower case words and "(", ")", ",", skip strings and comments */
+	private static List<String> tokens(String sql) {// NOSONAR
+		List<String> tokens = new ArrayList<String>();
+		int len = sql.length();
+		int i = 0;
+		while (i < len) {
+			char c = sql.charAt(i);
+			if (c == '\'') {
+				i = sql.indexOf('\'', i + 1);
+				while (i > 0 && i + 1 < len && sql.charAt(i + 1) == '\'')
+					i = sql.indexOf('\'', i + 2);
+				i = i < 0 ? len : i + 1;
+			} else if (c == '-' && i + 1 < len && sql.charAt(i + 1) == '-') {
+				i = sql.indexOf('\n', i);
+				i = i < 0 ? len : i + 1;
+			} else if (c == '/' && i + 1 < len && sql.charAt(i + 1) == '*') {
+				i = sql.indexOf("*/", i + 2);
+				i = i < 0 ? len : i + 2;
+			} else if (c == '(' || c == ')' || c == ',' || c == '?' || c == '=') {
+				tokens.add(String.valueOf(c));
+				i++;
+			} else if (isWordChar(c)) {
+				int start = i;
+				while (i < len && isWordChar(sql.charAt(i)))
+					i++;
+				tokens.add(sql.substring(start, i).toLowerCase());
+			} else
+				i++;
+		}
+		return tokens;
+	}
+
+	private static boolean isWordChar(char c) {
+		return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '.' || c == '"' || c == '`' || c == '['
+				|| c == ']' || c == '#' || c == '@' || c == '*';
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdbpro.handler;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.drinkjava2.jdbpro.PreparedSQL;
+
+/**
+ * CacheKey is the key of a cached query result, made by SQL, result set handler
+ * class and parameters of a PreparedSQL. It does not build any String, hash
+ * code is calculated once in constructor, equals compare SQL by identity first
+ * (SQL are canonicalized), then handler class and parameters (arrays like
+ * byte[] are compared by content).<br/>
+ *
+ * Note: parameters array is not copied, do not change it after key created.
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public final class CacheKey {
+	/** Canonical SQL instances, SQL not in it still work but compare slower */
+	private static final ConcurrentHashMap<String, String> SQLS = new ConcurrentHashMap<String, String>();
+	private static final int MAX_CANONICAL_SQLS = 4096;
+
+	private final String sql;
+	private final Class<?> handlerClass;
+	private final Object[] params;
+	private final int hash;
+
+	public CacheKey(String sql, Class<?> handlerClass, Object... params) {
+		this.sql = canonicalSql(sql);
+		this.handlerClass = handlerClass;
+		this.params = params;
+		int h = this.sql == null ? 0 : this.sql.hashCode();
+		h = 31 * h + (handlerClass == null ? 0 : handlerClass.hashCode());
+		this.hash = 31 * h + Arrays.deepHashCode(params);
+	}
+
+	/** Create a CacheKey by SQL, result set handler class and parameters of a PreparedSQL */
+	public static CacheKey of(PreparedSQL ps) {
+		return new CacheKey(ps.getSql(), ps.getResultSetHandler() == null ? null : ps.getResultSetHandler().getClass(),
+				ps.getParams());
+	}
+
+	private static String canonicalSql(String sql) {
+		if (sql == null)
+			return null;
+		String canonical = SQLS.get(sql);
+		if (canonical != null)
+			return canonical;
+		if (SQLS.size() >= MAX_CANONICAL_SQLS)
+			return sql;
+		canonical = SQLS.putIfAbsent(sql, sql);
+		return canonical == null ? sql : canonical;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof CacheKey))
+			return false;
+		CacheKey other = (CacheKey) obj;
+		if (hash != other.hash || handlerClass != other.handlerClass)
+			return false;
+		if (sql != other.sql && (sql == null || !sql.equals(other.sql)))// NOSONAR
+			return false;
+		return Arrays.deepEquals(params, other.params);
+	}
+
+	@Override
+	public String toString() {
+		return "SQL:" + sql + "  Handler:" + (handlerClass == null ? null : handlerClass.getName()) + "  Params:"
+				+ Arrays.deepToString(params);
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public Class<?> getHandlerClass() {
+		return handlerClass;
+	}
+
+	public Object[] getParams() {
+		return params;
+	}
+}
@@ -18,9 +18,13 @@ import java.util.Map;
 import com.github.drinkjava2.jdbpro.DefaultOrderSqlHandler;
 import com.github.drinkjava2.jdbpro.ImprovedQueryRunner;
 import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdbpro.TableTags;
 
 /**
- * SimpleCacheHandler is a simple memory cache used to cache SQL query result .
+ * SimpleCacheHandler is a simple memory cache used to cache SQL query result,
+ * cached results are invalidated when tables they read changed (see
+ * TableTags), results queried in a transaction are not cached, for heavy
+ * concurrent use see TinyLfuCacheHandler.
  * 
  * @author Yong Zhu
  * @since 1.7.0.2
@@ -28,7 +32,7 @@ import com.github.drinkjava2.jdbpro.PreparedSQL;
 public class SimpleCacheHandler extends DefaultOrderSqlHandler {
 
 	/** A simple thread-safe LRU Cache with 500 items capacity */
-	private Map<String, Object> cache;
+	private Map<Object, Object> cache;
 
 	private int aliveSeconds = 1000;
 	private int capacity = 500;
@@ -67,29 +71,29 @@ public class SimpleCacheHandler extends DefaultOrderSqlHandler {
 		cache.clear();
 	}
 
-	private String createKey(PreparedSQL ps) {
-		StringBuilder sb = new StringBuilder(Long.toString(System.currentTimeMillis() / 1000 / aliveSeconds))
-				.append("SQL:").append(ps.getSql()).append("  Params:");
-		Object[] params = ps.getParams();
-		if (params != null)
-			for (Object para : params)
-				sb.append(para);
-		return sb.toString();
+	/** Create cache key of a PreparedSQL, see CacheKey */
+	protected Object createKey(PreparedSQL ps) {
+		return CacheKey.of(ps);
 	}
 
 	@Override
 	public Object handle(ImprovedQueryRunner runner, PreparedSQL ps) {
-		String key = createKey(ps);
-		Object result = cache.get(key);
-		if (result != null)
-			return ((Object[]) result)[1];
-		result = runner.runPreparedSQL(ps);
-		cache.put(key, new Object[] { null, result });
+		Object key = createKey(ps);
+		long timeBucket = System.currentTimeMillis() / 1000 / aliveSeconds;
+		Object[] cached = (Object[]) cache.get(key);
+		if (cached != null && (Long) cached[3] == timeBucket
+				&& TableTags.isCurrent((String[]) cached[0], (long[]) cached[1]))
+			return cached[2];
+		String[] tags = TableTags.readTables(ps);
+		long[] tagVersions = TableTags.versionsOf(tags);
+		Object result = runner.runPreparedSQL(ps);
+		if (!TinyLfuCacheHandler.isInTransaction(runner)) // uncommitted result can not be cached
+			cache.put(key, new Object[] { tags, tagVersions, result, timeBucket });
 		return result;
 	}
 
 	@SuppressWarnings("serial")
-	public static class LRULinkedHashMap extends LinkedHashMap<String, Object> {// NOSONAR
+	public static class LRULinkedHashMap extends LinkedHashMap<Object, Object> {// NOSONAR
 		private int capacity;
 
 		LRULinkedHashMap(int capacity) {
@@ -98,7 +102,7 @@ public class SimpleCacheHandler extends DefaultOrderSqlHandler {
 		}
 
 		@Override
-		public boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+		public boolean removeEldestEntry(Map.Entry<Object, Object> eldest) {
 			return size() > capacity;
 		}
 	}
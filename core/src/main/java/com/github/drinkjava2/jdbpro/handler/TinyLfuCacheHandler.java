@@ -0,0 +1,444 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdbpro.handler;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.drinkjava2.jdbpro.DefaultOrderSqlHandler;
+import com.github.drinkjava2.jdbpro.ImprovedQueryRunner;
+import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdbpro.SqlOption;
+import com.github.drinkjava2.jdbpro.TableTags;
+
+/**
+ * TinyLfuCacheHandler is a thread-safe memory cache used to cache SQL query
+ * result, it's a replacement of SimpleCacheHandler for heavy concurrent use:
+ *
+ * <pre>
+ * 1. Entries are spread to 16 segments, each segment has its own lock, so
+ *    threads reading different entries seldom wait each other.
+ * 2. Capacity is the total estimated bytes of cached results, see weigh method.
+ * 3. Each entry expires aliveSeconds after it be put into cache.
+ * 4. W-TinyLFU eviction: new entry first put into a small LRU window, entries
+ *    evicted from window only admitted into main LRU area when its access
+ *    frequency (recorded in a count-min sketch) is higher than the main area's
+ *    eviction victim, so a large scan query will not flush out hot entries.
+ * 5. Entries are tagged by tables the query read, writes of these tables
+ *    invalidate them, see TableTags.
+ * 6. Hit, miss and eviction statistics.
+ * </pre>
+ *
+ * Only QUERY type SQL be cached, null result and result queried in a
+ * transaction not be cached.
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class TinyLfuCacheHandler extends DefaultOrderSqlHandler {// NOSONAR
+	private static final int SEGMENTS = 16;
+	private static final int WINDOW_PERCENT = 1;
+	private static final int MAX_WEIGH_DEPTH = 4;
+	private static final int MAX_WEIGH_SAMPLES = 32;
+
+	private final Segment[] segments = new Segment[SEGMENTS];
+	private final FrequencySketch sketch;
+	private final long maximumWeight;
+	private final int aliveSeconds;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	/** Build a cache handler with 16M bytes capacity, cached result alive 1000 seconds */
+	public TinyLfuCacheHandler() {
+		this(16L * 1024 * 1024, 1000);
+	}
+
+	/**
+	 * Build a cache handler
+	 *
+	 * @param maximumWeight
+	 *            The capacity, i.e., the max total estimated bytes of cached
+	 *            results, one result bigger than main area (99%) of 1/16 of
+	 *            capacity will not be cached
+	 * @param aliveSeconds
+	 *            Seconds a cached result alive
+	 */
+	public TinyLfuCacheHandler(long maximumWeight, int aliveSeconds) {
+		if (maximumWeight < SEGMENTS)
+			throw new IllegalArgumentException("maximumWeight should not less than " + SEGMENTS);
+		if (aliveSeconds <= 0)
+			throw new IllegalArgumentException("aliveSeconds should be greater than 0");
+		this.maximumWeight = maximumWeight;
+		this.aliveSeconds = aliveSeconds;
+		long segmentWeight = maximumWeight / SEGMENTS;
+		for (int i = 0; i < SEGMENTS; i++)
+			segments[i] = new Segment(segmentWeight);
+		sketch = new FrequencySketch((int) Math.min(Math.max(maximumWeight / 64, 4096), 1 << 22));
+	}
+
+	@Override
+	public Object handle(ImprovedQueryRunner runner, PreparedSQL ps) {
+		if (!SqlOption.QUERY.equals(ps.getOperationType()))
+			return runner.runPreparedSQL(ps);
+		Object key = createKey(ps);
+		Object result = get(key);
+		if (result != null)
+			return result;
+		String[] tags = TableTags.readTables(ps);
+		long[] tagVersions = TableTags.versionsOf(tags);
+		result = runner.runPreparedSQL(ps);
+		if (!isInTransaction(runner)) // uncommitted result can not be cached
+			put(key, result, tags, tagVersions);
+		return result;
+	}
+
+	/** Return true if runner is in a transaction */
+	static boolean isInTransaction(ImprovedQueryRunner runner) {
+		return runner.getConnectionManager() != null && runner.getDataSource() != null
+				&& runner.getConnectionManager().isInTransaction(runner.getDataSource());
+	}
+
+	/** Create cache key of a PreparedSQL, see CacheKey */
+	protected Object createKey(PreparedSQL ps) {
+		return CacheKey.of(ps);
+	}
+
+	/** Return cached value, if not found, expired or invalidated return null */
+	public Object get(Object key) {
+		int hash = spread(key.hashCode());
+		Segment seg = segments[hash & (SEGMENTS - 1)];
+		Node node = seg.get(key, System.currentTimeMillis());
+		sketch.increment(hash);
+		if (node == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return node.value;
+	}
+
+	/** Put a value into cache, null value or too big value will not be cached */
+	public void put(Object key, Object value) {
+		put(key, value, null, null);
+	}
+
+	/**
+	 * Put a value tagged by table tags into cache, tagVersions is the snapshot of
+	 * TableTags.versionsOf(tags) taken before the value be queried out, if
+	 * versions changed the value is invalidated
+	 */
+	public void put(Object key, Object value, String[] tags, long[] tagVersions) {
+		if (value == null || (tags != null && !TableTags.isCurrent(tags, tagVersions)))
+			return;
+		int hash = spread(key.hashCode());
+		Segment seg = segments[hash & (SEGMENTS - 1)];
+		long weight = weigh(key) + weigh(value);
+		if (weight > seg.maxMainWeight) // can never be admitted into main area
+			return;
+		seg.put(new Node(key, hash, value, weight, System.currentTimeMillis() + aliveSeconds * 1000L, tags,
+				tagVersions));
+	}
+
+	/** Remove a cached value */
+	public void remove(Object key) {
+		segments[spread(key.hashCode()) & (SEGMENTS - 1)].remove(key);
+	}
+
+	/** Call this method to manually clear cache */
+	public void clearCache() {
+		for (Segment seg : segments)
+			seg.clear();
+	}
+
+	/**
+	 * Estimate the memory bytes of an object, subclass can override this method
+	 * to give a more accurate estimate, big collections are estimated by sampling
+	 * its first elements
+	 */
+	protected long weigh(Object obj) {
+		return weigh(obj, 0);
+	}
+
+	private static long weigh(Object obj, int depth) {// NOSONAR
+		if (obj == null)
+			return 4;
+		if (obj instanceof String)
+			return 40 + 2L * ((String) obj).length();
+		if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character
+				|| obj instanceof java.util.Date)
+			return 24;
+		if (depth >= MAX_WEIGH_DEPTH)
+			return 64;
+		if (obj instanceof CacheKey) // SQL is shared by keys
+			return 32 + weigh(((CacheKey) obj).getParams(), depth + 1);
+		if (obj instanceof Map)
+			return 48 + weighElements(((Map<?, ?>) obj).entrySet(), ((Map<?, ?>) obj).size(), depth);
+		if (obj instanceof Collection)
+			return 40 + weighElements((Collection<?>) obj, ((Collection<?>) obj).size(), depth);
+		if (obj instanceof Entry)
+			return 32 + weigh(((Entry<?, ?>) obj).getKey(), depth + 1)
+					+ weigh(((Entry<?, ?>) obj).getValue(), depth + 1);
+		if (obj.getClass().isArray()) {
+			int length = Array.getLength(obj);
+			if (obj.getClass().getComponentType().isPrimitive())
+				return 16 + 8L * length;
+			long sum = 0;
+			int samples = Math.min(length, MAX_WEIGH_SAMPLES);
+			for (int i = 0; i < samples; i++)
+				sum += 4 + weigh(Array.get(obj, i), depth + 1);
+			return 16 + (samples == 0 ? 0 : sum * length / samples);
+		}
+		return 64;
+	}
+
+	private static long weighElements(Iterable<?> elements, int size, int depth) {
+		long sum = 0;
+		int samples = 0;
+		for (Iterator<?> it = elements.iterator(); it.hasNext() && samples < MAX_WEIGH_SAMPLES; samples++)
+			sum += 16 + weigh(it.next(), depth + 1);
+		return samples == 0 ? 0 : sum * size / samples;
+	}
+
+	private static int spread(int h) {
+		h ^= (h >>> 20) ^ (h >>> 12);
+		return h ^ (h >>> 7) ^ (h >>> 4);
+	}
+
+	/** A cached entry */
+	private static class Node {
+		final Object key;
+		final int hash;
+		final Object value;
+		final long weight;
+		final long expireAt;
+		final String[] tags;
+		final long[] tagVersions;
+
+		Node(Object key, int hash, Object value, long weight, long expireAt, String[] tags, long[] tagVersions) {// NOSONAR
+			this.key = key;
+			this.hash = hash;
+			this.value = value;
+			this.weight = weight;
+			this.expireAt = expireAt;
+			this.tags = tags;
+			this.tagVersions = tagVersions;
+		}
+
+		boolean isValid(long now) {
+			return expireAt > now && (tags == null || TableTags.isCurrent(tags, tagVersions));
+		}
+	}
+
+	/** A segment has a LRU window area and a LRU main area, guarded by itself */
+	private class Segment {
+		final long maxWeight;
+		final long maxWindowWeight;
+		final long maxMainWeight;
+		final LinkedHashMap<Object, Node> window = new LinkedHashMap<Object, Node>(16, 0.75f, true);
+		final LinkedHashMap<Object, Node> main = new LinkedHashMap<Object, Node>(16, 0.75f, true);
+		long windowWeight;
+		long mainWeight;
+
+		Segment(long maxWeight) {
+			this.maxWeight = maxWeight;
+			this.maxWindowWeight = Math.max(1, maxWeight * WINDOW_PERCENT / 100);
+			this.maxMainWeight = maxWeight - maxWindowWeight;
+		}
+
+		synchronized Node get(Object key, long now) {
+			Node node = window.get(key);
+			if (node == null)
+				node = main.get(key);
+			if (node != null && !node.isValid(now)) {
+				remove(key);
+				return null;
+			}
+			return node;
+		}
+
+		synchronized void put(Node node) {
+			remove(node.key);
+			window.put(node.key, node);
+			windowWeight += node.weight;
+			long now = System.currentTimeMillis();
+			while (windowWeight > maxWindowWeight) {
+				Node candidate = removeEldest(window);
+				windowWeight -= candidate.weight;
+				if (candidate.isValid(now))
+					admit(candidate, now);
+			}
+		}
+
+		/** Move candidate into main area if it's more frequently used than victims */
+		private void admit(Node candidate, long now) {
+			while (mainWeight + candidate.weight > maxMainWeight) {
+				if (main.isEmpty())
+					break;
+				Node victim = main.values().iterator().next();
+				if (victim.isValid(now) && sketch.frequency(victim.hash) >= sketch.frequency(candidate.hash)) {
+					evictionCount.incrementAndGet();
+					return;
+				}
+				main.remove(victim.key);
+				mainWeight -= victim.weight;
+				if (victim.isValid(now))
+					evictionCount.incrementAndGet();
+			}
+			main.put(candidate.key, candidate);
+			mainWeight += candidate.weight;
+		}
+
+		private Node removeEldest(LinkedHashMap<Object, Node> map) {
+			Iterator<Node> it = map.values().iterator();
+			Node node = it.next();
+			it.remove();
+			return node;
+		}
+
+		synchronized void remove(Object key) {
+			Node node = window.remove(key);
+			if (node != null)
+				windowWeight -= node.weight;
+			node = main.remove(key);
+			if (node != null)
+				mainWeight -= node.weight;
+		}
+
+		synchronized void clear() {
+			window.clear();
+			main.clear();
+			windowWeight = 0;
+			mainWeight = 0;
+		}
+
+		synchronized int size() {
+			return window.size() + main.size();
+		}
+
+		synchronized long weight() {
+			return windowWeight + mainWeight;
+		}
+	}
+
+	/**
+	 * Count-min sketch of access frequency with 4 hashes and counters max to 15,
+	 * counters are halved after sampled enough accesses so old hot entries can
+	 * cool down. Counters are updated without lock, lost update is acceptable.
+	 */
+	private static class FrequencySketch {
+		private static final int[] SEEDS = { 0x97cb3127, 0xbe5466cf, 0xb492b66f, 0xc2b2ae35 };
+		private final byte[] counters;
+		private final int mask;
+		private final int resetSize;
+		private final AtomicInteger additions = new AtomicInteger();
+
+		FrequencySketch(int size) {
+			int length = Integer.highestOneBit(size - 1) << 1;
+			counters = new byte[length];
+			mask = length - 1;
+			resetSize = length;
+		}
+
+		private int indexOf(int hash, int i) {
+			int h = hash * SEEDS[i];
+			return (h ^ (h >>> 16)) & mask;
+		}
+
+		void increment(int hash) {
+			for (int i = 0; i < 4; i++) {
+				int index = indexOf(hash, i);
+				if (counters[index] < 15)
+					counters[index]++;
+			}
+			if (additions.incrementAndGet() >= resetSize)
+				reset();
+		}
+
+		int frequency(int hash) {
+			int freq = 15;
+			for (int i = 0; i < 4; i++)
+				freq = Math.min(freq, counters[indexOf(hash, i)]);
+			return freq;
+		}
+
+		private synchronized void reset() {
+			if (additions.get() < resetSize)
+				return;
+			for (int i = 0; i < counters.length; i++)
+				counters[i] = (byte) (counters[i] >>> 1);
+			additions.set(0);
+		}
+	}
+
+	protected void GetterSetters_________________________() {// NOSONAR
+	}
+
+	public long getMaximumWeight() {
+		return maximumWeight;
+	}
+
+	public int getAliveSeconds() {
+		return aliveSeconds;
+	}
+
+	/** Return how many times get method found a cached value */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/** Return how many times get method not found a cached value */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/** Return how many entries evicted or rejected because of capacity */
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/** Return hit count / (hit count + miss count) */
+	public double getHitRate() {
+		long hit = hitCount.get();
+		long total = hit + missCount.get();
+		return total == 0 ? 1.0 : (double) hit / total;
+	}
+
+	/** Return current cached entries quantity, expired entries may be included */
+	public int getSize() {
+		int size = 0;
+		for (Segment seg : segments)
+			size += seg.size();
+		return size;
+	}
+
+	/** Return current total estimated bytes of cached entries */
+	public long getWeightedSize() {
+		long weight = 0;
+		for (Segment seg : segments)
+			weight += seg.weight();
+		return weight;
+	}
+
+	@Override
+	public String toString() {
+		return "TinyLfuCacheHandler[hit=" + getHitCount() + ", miss=" + getMissCount() + ", eviction="
+				+ getEvictionCount() + ", size=" + getSize() + ", weightedSize=" + getWeightedSize() + "]";
+	}
+}
@@ -15,14 +15,14 @@
  */
 package com.github.drinkjava2.jdbpro.template;
 
-import java.beans.IntrospectionException;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
 import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdialects.BeanAccessor;
+import com.github.drinkjava2.jdialects.LRUCache;
 
 /**
  * BasicSqlTemplate is a simple implementation of SqlTemplateEngine. It allow
@@ -52,6 +52,13 @@ public class BasicSqlTemplate implements SqlTemplateEngine {
 	private static final String DIRECT_REPLACE_START_DELIMITER = "${";
 	private static final String DIRECT_REPLACE_END_DELIMITER = "}";
 
+	/** Max number of cached compiled templates, least recently used evicted */
+	private static final int MAX_CACHED_TEMPLATES = 4096;
+
+	/** Cache of compiled templates, key is SQL template */
+	private final LRUCache<String, CompiledTemplate> compiledCache = new LRUCache<String, CompiledTemplate>(
+			MAX_CACHED_TEMPLATES);
+
 	/** A lazy initialization singleton pattern */
 	private static class InnerBasicSqlTemplate {
 		private InnerBasicSqlTemplate() {
@@ -116,35 +123,108 @@ public class BasicSqlTemplate implements SqlTemplateEngine {
 		if (!paramMap.isEmpty() && unbindParams != null && unbindParams.length > 0)
 			throw new BasicSqlTemplateException(
 					"Can not use paramMap or unbindParams at same time in BasicSqlTemplate.");
-		String newSql = sqlTemplate;
-		if (allowColonAsDelimiter)
-			newSql = translateColonToDelimiter(sqlTemplate);
-		return doRender(newSql, paramMap, unbindParams);
+		if (sqlTemplate == null)
+			throw new NullPointerException("Template can not be null");
+		return doRender(compile(sqlTemplate), paramMap, unbindParams);
+	}
+
+	/** Return the cached CompiledTemplate of a SQL template, compile it if not found */
+	protected CompiledTemplate compile(String sqlTemplate) {
+		CompiledTemplate compiled = compiledCache.get(sqlTemplate);
+		if (compiled == null) {
+			String newSql = sqlTemplate;
+			if (allowColonAsDelimiter)
+				newSql = translateColonToDelimiter(sqlTemplate);
+			compiled = doCompile(newSql);
+			compiledCache.put(sqlTemplate, compiled);
+		}
+		return compiled;
 	}
 
 	/**
-	 * Render a template with
+	 * Render a compiled template with
 	 * 
-	 * @param template
-	 *            A SQL Template String
+	 * @param compiled
+	 *            A CompiledTemplate
 	 * @param paramMap
 	 *            A Map stored SQL parameters
 	 * @param unbindedParams
 	 *            Optional, unbinded params,
 	 * @return A PreparedSQL instance which filled SQL and Params
 	 */
-	private PreparedSQL doRender(String template, Map<String, Object> paramMap, Object[] unbindParams) {
-		if (template == null)
-			throw new NullPointerException("Template can not be null");
-		int unbindParamPos = 0;
-		List<Object> realUnbindParam = null;// unbindParams has some direct replace String, need kick out
+	private PreparedSQL doRender(CompiledTemplate compiled, Map<String, Object> paramMap, Object[] unbindParams) {
 		boolean unbindMode = unbindParams != null && unbindParams.length > 0;
-		if (unbindMode)
-			realUnbindParam = new ArrayList<Object>();
+		Placeholder[] placeholders = compiled.placeholders;
+		StringBuilder sql = new StringBuilder(compiled.literalLength + 16 * placeholders.length);
+		Object[] params = new Object[compiled.bindCount];
+		int paramPos = 0;
+		for (int i = 0; i < placeholders.length; i++) {
+			sql.append(compiled.literals[i]);
+			Placeholder p = placeholders[i];
+			Object value;
+			if (unbindMode)
+				value = unbindParams[i];
+			else {
+				String paramKey = (p.directRep && dollarKeyForDollarPlaceHolder) ? p.dollarKey : p.key;
+				if (!paramMap.containsKey(paramKey)) {
+					if (p.propertyPath == null)
+						throwEX("No parameter bind for '" + paramKey + "' in template: " + compiled.template);
+					else
+						throwEX("Not found bean '" + paramKey + "' when render template: " + compiled.template);
+				}
+				value = paramMap.get(paramKey);
+				if (p.propertyPath != null)
+					value = readBeanProperty(value, p, compiled.template);
+			}
+			if (p.directRep)
+				sql.append(value);
+			else {
+				sql.append('?');
+				params[paramPos++] = value;
+			}
+		}
+		sql.append(compiled.literals[placeholders.length]);
+		PreparedSQL sp = new PreparedSQL();
+		sp.setSql(sql.toString());
+		sp.setParams(params);
+		return sp;
+	}
+
+	/**
+	 * Read bean property by path like "user.address.city", property read methods
+	 * are cached by BeanAccessor, so no introspection happen when render
+	 */
+	private static Object readBeanProperty(Object bean, Placeholder p, String template) {
+		Object value = bean;
+		for (String property : p.propertyPath) {
+			if (value == null)
+				throwEX("Null value found when read bean property '" + p.name + "' in template: " + template);
+			BeanAccessor accessor = BeanAccessor.of(value.getClass());// NOSONAR
+			int index = accessor.indexOf(property);
+			if (index < 0)
+				throwEX("No property '" + property + "' found in '" + value.getClass() // NOSONAR
+						+ "' when read bean property '" + p.name + "' in template: " + template);
+			try {
+				value = accessor.readValue(value, index);
+			} catch (Exception e1) {
+				throwEX("Exception happen when read bean property '" + p.name + "' in template: " + template, e1);
+			}
+		}
+		return value;
+	}
 
+	/**
+	 * Compile a template to literal pieces and placeholders
+	 * 
+	 * @param template
+	 *            A SQL Template String
+	 * @return A CompiledTemplate
+	 */
+	private CompiledTemplate doCompile(String template) {// NOSONAR
+		List<String> literals = new ArrayList<String>();
+		List<Placeholder> placeholders = new ArrayList<Placeholder>();
 		StringBuilder sql = new StringBuilder();
 		StringBuilder keyNameSB = new StringBuilder();
-		List<Object> paramList = new ArrayList<Object>();
 		char[] chars = ("   " + template + "   ").toCharArray();
 
 		int lg = startDelimiter.length();
@@ -195,66 +275,15 @@ public class BasicSqlTemplate implements SqlTemplateEngine {
 				if (key.indexOf('.') >= 0) {// JavaBean
 					String beanName = substringBefore(key, ".");
 					String propertyName = substringAfter(key, ".");
-					if (isEmpty(beanName) || isEmpty(propertyName))
+					String[] propertyPath = propertyName.split("\\.");
+					if (isEmpty(beanName) || isEmpty(propertyName) || propertyName.endsWith(".")
+							|| Arrays.asList(propertyPath).contains(""))
 						throwEX("illegal parameter name '" + key + "' found in template: " + template);
-
-					String paramKey = (directRep && dollarKeyForDollarPlaceHolder) ? "$" + beanName : beanName;
-					boolean hasValue = paramMap.containsKey(paramKey);
-
-					if (unbindMode) {// unbindMode
-						if (directRep)
-							sql.append(unbindParams[unbindParamPos++]);
-						else {
-							sql.append("?");
-							realUnbindParam.add(unbindParams[unbindParamPos++]);
-						}
-					} else {// template mode
-						if (!hasValue)
-							throwEX("Not found bean '" + paramKey + "' when render template: " + template);
-						Object bean = paramMap.get(paramKey);
-						PropertyDescriptor pd = null;
-						try {
-							pd = new PropertyDescriptor(propertyName, bean.getClass());
-						} catch (IntrospectionException e1) {
-							throwEX("IntrospectionException happen when get bean property '" + key + "' in template: "
-									+ template, e1);
-						}
-						Method method = pd.getReadMethod();
-						Object beanProperty = null;
-						try {
-							beanProperty = method.invoke(bean);
-						} catch (Exception e1) {
-							throwEX("Exception happen when read bean property '" + key + "' in template: " + template,
-									e1);
-						}
-						if (directRep) {
-							sql.append(beanProperty);
-						} else {
-							sql.append("?");
-							paramList.add(beanProperty);
-						}
-					}
-				} else {
-					if (unbindMode) {
-						if (directRep)
-							sql.append(unbindParams[unbindParamPos++]);
-						else {
-							sql.append("?");
-							realUnbindParam.add(unbindParams[unbindParamPos++]);
-						}
-					} else { // template mode
-						String paramKey = (directRep && dollarKeyForDollarPlaceHolder) ? "$" + key : key;
-						if (!paramMap.containsKey(paramKey)) {
-							throwEX("No parameter bind for '" + paramKey + "' in template: " + template);
-						}
-						if (directRep) {
-							sql.append(paramMap.get(paramKey));
-						} else {
-							sql.append("?");
-							paramList.add(paramMap.get(paramKey));
-						}
-					}
-				}
+					placeholders.add(new Placeholder(key, beanName, propertyPath, directRep));
+				} else
+					placeholders.add(new Placeholder(key, key, null, directRep));
+				literals.add(sql.toString());
+				sql.setLength(0);
 				keyNameSB.setLength(0);
 			}
 			if (status == 0)
@@ -264,14 +293,54 @@ public class BasicSqlTemplate implements SqlTemplateEngine {
 		}
 		if (status != 0)
 			throwEX("Missing end delimiter '" + endDelimiter + "' in template: " + template);
-		PreparedSQL sp = new PreparedSQL();
 		sql.setLength(sql.length() - 1);
-		sp.setSql(sql.toString());
-		if (unbindMode)
-			sp.setParams(realUnbindParam.toArray(new Object[realUnbindParam.size()]));
-		else
-			sp.setParams(paramList.toArray());
-		return sp;
+		literals.add(sql.toString());
+		return new CompiledTemplate(template, literals.toArray(new String[literals.size()]),
+				placeholders.toArray(new Placeholder[placeholders.size()]));
+	}
+
+	/** A "#{name}", "${name}" or "#{bean.property}" piece in template */
+	protected static final class Placeholder {
+		final String name;
+		final String key;
+		final String dollarKey;
+		final String[] propertyPath; // null if not a bean property
+		final boolean directRep;
+
+		Placeholder(String name, String key, String[] propertyPath, boolean directRep) {
+			this.name = name;
+			this.key = key;
+			this.dollarKey = "$" + key;
+			this.propertyPath = propertyPath;
+			this.directRep = directRep;
+		}
+	}
+
+	/**
+	 * A compiled template, i.e., literal pieces and placeholders between them,
+	 * immutable and can be shared by threads
+	 */
+	protected static final class CompiledTemplate {
+		final String template;
+		final String[] literals; // length is placeholders.length + 1
+		final Placeholder[] placeholders;
+		final int literalLength;
+		final int bindCount;
+
+		CompiledTemplate(String template, String[] literals, Placeholder[] placeholders) {
+			this.template = template;
+			this.literals = literals;
+			this.placeholders = placeholders;
+			int length = 0;
+			for (String literal : literals)
+				length += literal.length();
+			this.literalLength = length;
+			int count = 0;
+			for (Placeholder p : placeholders)
+				if (!p.directRep)
+					count++;
+			this.bindCount = count;
+		}
 	}
 
 	/** Translate colon to delimiter, for example: user to #{user} */
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdialects;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.drinkjava2.jdialects.model.ColumnModel;
+
+/**
+ * BeanAccessor resolve all read and write methods of a bean class only once,
+ * store them in arrays and address them by index, so row mapping code can
+ * resolve column indexes once and then read/write each cell without any map
+ * lookup or access check. <br/>
+ *
+ * jDialects is compiled on Java6, so LambdaMetafactory and MethodHandles can
+ * not be used here, but after some calls JVM inflates Method.invoke into
+ * generated bytecode accessor, so cached Methods are fast enough.
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class BeanAccessor {
+	private static final Map<Class<?>, BeanAccessor> accessorCache = new ConcurrentHashMap<Class<?>, BeanAccessor>();
+
+	private final Class<?> beanClass;
+	private final String[] fieldNames;
+	private final Method[] readMethods;
+	private final Method[] writeMethods;
+	private final Map<String, Integer> fieldIndexes;
+
+	private BeanAccessor(Class<?> beanClass) {
+		this.beanClass = beanClass;
+		Map<String, Method> reads = ClassCacheUtils.getClassReadMethods(beanClass);
+		Map<String, Method> writes = ClassCacheUtils.getClassWriteMethods(beanClass);
+		int size = reads.size();
+		fieldNames = new String[size];
+		readMethods = new Method[size];
+		writeMethods = new Method[size];
+		fieldIndexes = new HashMap<String, Integer>(size * 2);
+		int i = 0;
+		for (Entry<String, Method> entry : reads.entrySet()) {
+			fieldNames[i] = entry.getKey();
+			readMethods[i] = makeAccessible(entry.getValue());
+			writeMethods[i] = makeAccessible(writes.get(entry.getKey()));
+			fieldIndexes.put(entry.getKey(), i);
+			i++;
+		}
+	}
+
+	/** Return the cached BeanAccessor of given class, create it if not exist */
+	public static BeanAccessor of(Class<?> beanClass) {
+		BeanAccessor accessor = accessorCache.get(beanClass);
+		if (accessor == null) {
+			accessor = new BeanAccessor(beanClass);
+			accessorCache.put(beanClass, accessor);
+		}
+		return accessor;
+	}
+
+	/** Turn off access check, Method.invoke will be a little faster */
+	private static Method makeAccessible(Method method) {
+		if (method != null)
+			try {
+				method.setAccessible(true);
+			} catch (RuntimeException e) {// NOSONAR SecurityException or Java9+ module limitation
+				DialectException.eatException(e);
+			}
+		return method;
+	}
+
+	/** Return index of given field name, if not found return -1 */
+	public int indexOf(String fieldName) {
+		Integer index = fieldIndexes.get(fieldName);
+		return index == null ? -1 : index;
+	}
+
+	/**
+	 * Return accessor indexes of given columns, transient column or column not
+	 * mapped to a bean field (i.e. tail column) get -1
+	 */
+	public int[] indexesOf(List<ColumnModel> columns) {
+		int[] result = new int[columns.size()];
+		for (int i = 0; i < result.length; i++) {
+			ColumnModel col = columns.get(i);
+			if (col == null || col.getTransientable() || col.getEntityField() == null)
+				result[i] = -1;
+			else
+				result[i] = indexOf(col.getEntityField());
+		}
+		return result;
+	}
+
+	/** Read value from bean by accessor index */
+	public Object readValue(Object bean, int index) {
+		Method readMethod = readMethods[index];
+		if (readMethod == null)
+			throw new DialectException(
+					"No mapping found for field '" + fieldNames[index] + "' in '" + beanClass + "'");
+		try {
+			return readMethod.invoke(bean, (Object[]) null);
+		} catch (Exception e) {
+			throw new DialectException(e);
+		}
+	}
+
+	/** Write value to bean by accessor index */
+	public void writeValue(Object bean, int index, Object value) {
+		Method writeMethod = writeMethods[index];
+		if (writeMethod == null)
+			throw new DialectException("Can not find Java bean read method '" + fieldNames[index] + "'");
+		try {
+			writeMethod.invoke(bean, value);
+		} catch (Exception e) {
+			throw new DialectException(
+					"FieldName '" + fieldNames[index] + "' can not write with value '" + value + "'", e);
+		}
+	}
+
+	/** Read value from bean by field name */
+	public Object readValue(Object bean, String fieldName) {
+		int index = indexOf(fieldName);
+		if (index < 0)
+			throw new DialectException("No mapping found for field '" + fieldName + "' in '" + beanClass + "'");
+		return readValue(bean, index);
+	}
+
+	/** Write value to bean by field name */
+	public void writeValue(Object bean, String fieldName, Object value) {
+		int index = indexOf(fieldName);
+		if (index < 0)
+			throw new DialectException("Can not find Java bean read method '" + fieldName + "'");
+		writeValue(bean, index, value);
+	}
+
+	public Class<?> getBeanClass() {
+		return beanClass;
+	}
+
+	public String[] getFieldNames() {
+		return fieldNames;
+	}
+
+}
@@ -180,29 +180,12 @@ public abstract class ClassCacheUtils {// NOSONAR
 
 	/** Read value from entityBean field */
 	public static Object readValueFromBeanField(Object entityBean, String fieldName) {
-		Method readMethod = ClassCacheUtils.getClassFieldReadMethod(entityBean.getClass(), fieldName);
-		if (readMethod == null) {
-			throw new DialectException(
-					"No mapping found for field '" + fieldName + "' in '" + entityBean.getClass() + "'");
-		} else
-			try {
-				return readMethod.invoke(entityBean);
-			} catch (Exception e) {
-				throw new DialectException(e);
-			}
+		return BeanAccessor.of(entityBean.getClass()).readValue(entityBean, fieldName);
 	}
 
 	/** write value to entityBean field */
 	public static void writeValueToBeanField(Object entityBean, String fieldName, Object value) {
-		Method writeMethod = ClassCacheUtils.getClassFieldWriteMethod(entityBean.getClass(), fieldName);
-		if (writeMethod == null) {
-			throw new DialectException("Can not find Java bean read method '" + fieldName + "'");
-		} else
-			try {
-				writeMethod.invoke(entityBean, value);
-			} catch (Exception e) {
-				throw new DialectException("FieldName '" + fieldName + "' can not write with value '" + value + "'", e);
-			}
+		BeanAccessor.of(entityBean.getClass()).writeValue(entityBean, fieldName, value);
 	}
 
 	/**
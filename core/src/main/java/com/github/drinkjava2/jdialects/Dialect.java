@@ -12,8 +12,10 @@
 package com.github.drinkjava2.jdialects;
 
 import java.sql.Connection;
+import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.sql.DataSource;
@@ -76,6 +78,15 @@ public enum Dialect implements CommonDialect {
 	protected static final DialectLogger logger = DialectLogger.getLog(Dialect.class);
 	private String sqlTemplate = null;
 	private String topLimitTemplate = null;
+
+	/** Max number of cached pagination skeletons, least recently used evicted */
+	private static final int MAX_CACHED_PAGIN_SQLS = 1024;
+
+	/** Cached pagination skeletons of SQL, for first page and other pages */
+	private final LRUCache<String, DialectPaginationSkeleton> topLimitSkeletons = new LRUCache<String, DialectPaginationSkeleton>(
+			MAX_CACHED_PAGIN_SQLS);
+	private final LRUCache<String, DialectPaginationSkeleton> paginSkeletons = new LRUCache<String, DialectPaginationSkeleton>(
+			MAX_CACHED_PAGIN_SQLS);
 	protected final Map<Type, String> typeMappings = new EnumMap<Type, String>(Type.class);
 	protected final Map<String, String> functions = new HashMap<String, String>();
 	protected final DDLFeatures ddlFeatures = new DDLFeatures();// NOSONAR
@@ -244,23 +255,63 @@ public enum Dialect implements CommonDialect {
 	}
 
 	@Override
-	public String pagin(int pageNumber, int pageSize, String sql) {// NOSONAR
-		String result = null;
+	public String pagin(int pageNumber, int pageSize, String sql) {
+		return doPagin(pageNumber, pageSize, sql, null);
+	}
+
+	/**
+	 * Create a pagination SQL use "?" placeholders instead of inlined offset and
+	 * limit values, so SQL of different page numbers are same and can be cached
+	 * by driver and database. The offset and limit values are appended to
+	 * bindValues in order, they should be put after the original SQL's
+	 * parameters.<br/>
+	 * Only values after the original SQL body (LIMIT, OFFSET, FETCH, ROWNUM
+	 * conditions...) are bound, values before it (TOP, FIRST, SKIP...) are still
+	 * inlined because most databases do not allow parameters there.
+	 * 
+	 * @param pageNumber
+	 *            The page number, start from 1
+	 * @param pageSize
+	 *            The page size
+	 * @param sql
+	 *            The original SQL
+	 * @param bindValues
+	 *            A list to receive the pagination parameters
+	 * @return The paginated SQL
+	 */
+	public String paginBind(int pageNumber, int pageSize, String sql, List<Object> bindValues) {
+		DialectException.assureNotNull(bindValues, "bindValues can not be null");
+		return doPagin(pageNumber, pageSize, sql, bindValues);
+	}
+
+	private String doPagin(int pageNumber, int pageSize, String sql, List<Object> bindValues) {
 		DialectException.assureNotNull(sql, "sql string can not be null");
+		int skipRows = (pageNumber - 1) * pageSize;
+		int totalRows = pageNumber * pageSize;
+		LRUCache<String, DialectPaginationSkeleton> skeletons = skipRows == 0 ? topLimitSkeletons : paginSkeletons;
+		DialectPaginationSkeleton skeleton = skeletons.get(sql);
+		if (skeleton == null) {
+			skeleton = createPaginSkeleton(sql, skipRows == 0);
+			skeletons.put(sql, skeleton);
+		}
+		String result = skeleton.render(skipRows, pageSize, totalRows, bindValues);
+		if (getGlobalAllowShowSql())
+			logger.info("Paginated sql: " + result);
+		return result;
+	}
+
+	/** Choose pagination template and fill it with SQL, see DialectPaginationSkeleton */
+	private DialectPaginationSkeleton createPaginSkeleton(String sql, boolean firstPage) {// NOSONAR
 		String trimedSql = sql.trim();
 		DialectException.assureNotEmpty(trimedSql, "sql string can not be empty");
 
 		if (!StrUtils.startsWithIgnoreCase(trimedSql, "select "))
-			return (String) DialectException.throwEX("SQL should start with \"select \".");
+			return (DialectPaginationSkeleton) DialectException.throwEX("SQL should start with \"select \".");
 		String body = trimedSql.substring(7).trim();
 		DialectException.assureNotEmpty(body, "SQL body can not be empty");
 
-		int skipRows = (pageNumber - 1) * pageSize;
-		int skipRowsPlus1 = skipRows + 1;
-		int totalRows = pageNumber * pageSize;
-		int totalRowsPlus1 = totalRows + 1;
 		String useTemplate;
-		if (skipRows == 0) {
+		if (firstPage) {
 			useTemplate = topLimitTemplate;
 			if (SQLServer2012Dialect.equals(this) && !StrUtils.containsIgnoreCase(trimedSql, "order by "))
 				useTemplate = SQLServer2005Dialect.topLimitTemplate;
@@ -272,10 +323,11 @@ public enum Dialect implements CommonDialect {
 
 		if (Dialect.NOT_SUPPORT.equals(useTemplate)) {
 			if (!Dialect.NOT_SUPPORT.equals(this.topLimitTemplate))
-				return (String) DialectException
+				return (DialectPaginationSkeleton) DialectException
 						.throwEX("Dialect \"" + this + "\" only support top limit SQL, for example: \""
 								+ aTopLimitSqlExample(this.topLimitTemplate) + "\"");
-			return (String) DialectException.throwEX("Dialect \"" + this + "\" does not support physical pagination");
+			return (DialectPaginationSkeleton) DialectException
+					.throwEX("Dialect \"" + this + "\" does not support physical pagination");
 		}
 
 		if (useTemplate.contains(DISTINCT_TAG)) {
@@ -288,20 +340,8 @@ public enum Dialect implements CommonDialect {
 				body = body.substring(9);
 			}
 		}
-
-		// if have $XXX tag, replaced by real values 
-		result = StrUtils.replaceIgnoreCase(useTemplate, SKIP_ROWS, String.valueOf(skipRows));
-		result = StrUtils.replaceIgnoreCase(result, PAGESIZE, String.valueOf(pageSize));
-		result = StrUtils.replaceIgnoreCase(result, TOTAL_ROWS, String.valueOf(totalRows)); 
-
-		// now insert the customer's real full SQL here
-		result = StrUtils.replace(result, "$SQL", trimedSql);
-
-		// or only insert the body without "select "
-		result = StrUtils.replace(result, "$BODY", body);
-		if (getGlobalAllowShowSql())
-			logger.info("Paginated sql: " + result);
-		return result;
+		// $XXX tags become slots, $SQL and $BODY replaced by customer's SQL
+		return DialectPaginationSkeleton.compile(useTemplate, trimedSql, body);
 	}
 
 	/**
@@ -367,6 +407,20 @@ public enum Dialect implements CommonDialect {
 		return this.toString().startsWith("Derby");
 	}
 
+	/**
+	 * @return Max number of bind parameters can be used in one SQL, it's also used
+	 *         as max size of "in (?,?...)" list, Oracle allow max 1000 expressions
+	 *         in a list, SQL Server and Sybase allow max 2100 and 2048 parameters,
+	 *         SQLite allow max 999 parameters, others use a safe value 1000
+	 */
+	public int getMaxParameters() {
+		if (isSQLServerFamily() || isSybaseFamily())
+			return 2000;
+		if (this.toString().startsWith("SQLite"))
+			return 999;
+		return 1000;
+	}
+
 	// ===============================================
 	// Below are new DDL methods
 	// ===============================================
@@ -458,9 +512,13 @@ public enum Dialect implements CommonDialect {
 		return typeMappings;
 	}
 
-	/** Get DDL features of current dialect */
+	/**
+	 * Get an unmodifiable view of function templates of current dialect, they
+	 * are unmodifiable because translated SQL are cached by
+	 * DialectFunctionTranslator
+	 */
 	public Map<String, String> getFunctions() {
-		return functions;
+		return Collections.unmodifiableMap(functions);
 	}
 
 	/** Get DDL features of current dialect */
@@ -12,13 +12,18 @@
 package com.github.drinkjava2.jdialects;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * TranslateUtil parse a Sql, translate all universal functions like fn_sin() to
- * native SQL functions like sin()
+ * native SQL functions like sin(). Translate results are cached for each
+ * Dialect, the function map is unmodifiable, so a translator can be shared by
+ * threads.
  * 
  * 
  * @author Yong Zhu (Yong9981@gmail.com)
@@ -26,13 +31,22 @@ import java.util.Map;
  */
 public class DialectFunctionTranslator {
 	public static final DialectFunctionTranslator instance = new DialectFunctionTranslator();
-	private Map<String, Integer> functionMap = new HashMap<String, Integer>();
+	private volatile Map<String, Integer> functionMap;// NOSONAR
+
+	/** Max number of cached translate results of each Dialect, least recently used evicted */
+	private static final int MAX_CACHED_SQLS = 1024;
+
+	/** Translate results cache, key is Dialect, value is SQL to Translated cache */
+	private final ConcurrentHashMap<Dialect, LRUCache<String, Translated>> cache = new ConcurrentHashMap<Dialect, LRUCache<String, Translated>>();
+	private final AtomicLong cacheHitCount = new AtomicLong();
+	private final AtomicLong cacheMissCount = new AtomicLong();
 
 	/**
 	 * Register functions names need translated, values is percentage of dialects
 	 * support this function, value not used for this project
 	 */
 	public DialectFunctionTranslator() {
+		Map<String, Integer> functionMap = new HashMap<String, Integer>();
 		functionMap.put("ABS", 100);// Not necessary, all dialects are same
 		functionMap.put("AVG", 100);
 		functionMap.put("BIT_LENGTH", 100);
@@ -212,14 +226,58 @@ public class DialectFunctionTranslator {
 		functionMap.put("TIMESTAMPADD", 11);
 		functionMap.put("TIMESTAMPDIFF", 11);
 		functionMap.put("VARCHAR", 11);
+		this.functionMap = Collections.unmodifiableMap(functionMap);
+	}
+
+	/**
+	 * Build a translator only translate given function names, names should be
+	 * upper case, values are not used
+	 */
+	public DialectFunctionTranslator(Map<String, Integer> functionMap) {
+		this.functionMap = Collections.unmodifiableMap(new HashMap<String, Integer>(functionMap));
 	}
 
+	/** Return an unmodifiable map of function names need translated */
 	public Map<String, Integer> getFunctionMap() {
 		return functionMap;
 	}
 
+	/**
+	 * Replace function names need translated, given map is copied and cached
+	 * translate results are cleared
+	 * 
+	 * @deprecated use {@link #DialectFunctionTranslator(Map)} to build a new
+	 *             translator instead, changing a translator shared by threads may
+	 *             let a concurrent translate cache a result of old function map
+	 */
+	@Deprecated
 	public void setFunctionMap(Map<String, Integer> functionMap) {
-		this.functionMap = functionMap;
+		this.functionMap = Collections.unmodifiableMap(new HashMap<String, Integer>(functionMap));
+		clearCache();
+	}
+
+	/** Manually clear cached translate results */
+	public void clearCache() {
+		cache.clear();
+	}
+
+	public long getCacheHitCount() {
+		return cacheHitCount.get();
+	}
+
+	public long getCacheMissCount() {
+		return cacheMissCount.get();
+	}
+
+	/** A cached translate result and the global function prefix used by it */
+	private static final class Translated {
+		final String prefix;
+		final String result;
+
+		Translated(String prefix, String result) {
+			this.prefix = prefix;
+			this.result = result;
+		}
 	}
 
 	/**
@@ -285,15 +343,31 @@ public class DialectFunctionTranslator {
 		if (StrUtils.isEmpty(sql))
 			return sql;
 		// if prefix not empty and SQL not include prefix, directly return
-		if (!StrUtils.isEmpty(Dialect.getGlobalSqlFunctionPrefix())
-				&& !StrUtils.containsIgnoreCase(sql, Dialect.getGlobalSqlFunctionPrefix()))
+		String prefix = Dialect.getGlobalSqlFunctionPrefix();
+		if (!StrUtils.isEmpty(prefix) && !StrUtils.containsIgnoreCase(sql, prefix))
 			return sql;
-		char[] chars = (" " + sql + " ").toCharArray();
-		DialectSqlItem[] items = seperateCharsToItems(chars, 1, chars.length - 2);
-		for (DialectSqlItem item : items) {
-			correctType(item);
+		LRUCache<String, Translated> dialectCache = cache.get(d);
+		if (dialectCache == null) {
+			LRUCache<String, Translated> newCache = new LRUCache<String, Translated>(MAX_CACHED_SQLS);
+			dialectCache = cache.putIfAbsent(d, newCache);
+			if (dialectCache == null)
+				dialectCache = newCache;
+		}
+		String result;
+		Translated cached = dialectCache.get(sql);
+		if (cached != null && (prefix == null ? cached.prefix == null : prefix.equals(cached.prefix))) {
+			cacheHitCount.incrementAndGet();
+			result = cached.result;
+		} else {
+			cacheMissCount.incrementAndGet();
+			char[] chars = (" " + sql + " ").toCharArray();
+			DialectSqlItem[] items = seperateCharsToItems(chars, 1, chars.length - 2);
+			for (DialectSqlItem item : items) {
+				correctType(item);
+			}
+			result = join(d, true, null, items);
+			dialectCache.put(sql, new Translated(prefix, result));
 		}
-		String result = join(d, true, null, items);
 		if (Dialect.getGlobalAllowShowSql())
 			Dialect.logger.info("Translated sql: " + result);
 		return result;
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdialects;
+
+import java.util.List;
+
+/**
+ * A pagination template already filled with a SQL, only left slots for
+ * $SKIP_ROWS, $PAGESIZE and $TOTAL_ROWS values. Dialect cache it for each SQL,
+ * so paginate a same SQL again only need fill slots. This is an immutable
+ * class.
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+final class DialectPaginationSkeleton {
+	private static final String SKIP_ROWS = "$SKIP_ROWS";
+	private static final String PAGESIZE = "$PAGESIZE";
+	private static final String TOTAL_ROWS = "$TOTAL_ROWS";
+
+	private static final int SLOT_SKIP_ROWS = 0;
+	private static final int SLOT_PAGESIZE = 1;
+	private static final int SLOT_TOTAL_ROWS = 2;
+
+	private final String[] literals; // length is slots.length + 1
+	private final int[] slots;
+	private final boolean[] bindable; // slots after $SQL or $BODY can be "?"
+	private final int literalLength;
+
+	private DialectPaginationSkeleton(String[] literals, int[] slots, boolean[] bindable) {
+		this.literals = literals;
+		this.slots = slots;
+		this.bindable = bindable;
+		int length = 0;
+		for (String literal : literals)
+			length += literal.length();
+		this.literalLength = length;
+	}
+
+	/**
+	 * Compile a pagination template, tags are case insensitive, $SQL and $BODY in
+	 * template are replaced by given sql and body
+	 */
+	static DialectPaginationSkeleton compile(String template, String sql, String body) {// NOSONAR
+		int bodyPos = template.indexOf("$BODY");
+		if (bodyPos < 0)
+			bodyPos = template.indexOf("$SQL");
+		int count = 0;
+		String[] literals = new String[template.length() + 1];
+		int[] slots = new int[template.length()];
+		boolean[] bindable = new boolean[template.length()];
+		StringBuilder sb = new StringBuilder(template.length() + sql.length());
+		int i = 0;
+		while (i < template.length()) {
+			char c = template.charAt(i);
+			int slot = -1;
+			int tagLength = 1;
+			if (c == '$') {
+				if (template.regionMatches(true, i, SKIP_ROWS, 0, SKIP_ROWS.length())) {
+					slot = SLOT_SKIP_ROWS;
+					tagLength = SKIP_ROWS.length();
+				} else if (template.regionMatches(true, i, PAGESIZE, 0, PAGESIZE.length())) {
+					slot = SLOT_PAGESIZE;
+					tagLength = PAGESIZE.length();
+				} else if (template.regionMatches(true, i, TOTAL_ROWS, 0, TOTAL_ROWS.length())) {
+					slot = SLOT_TOTAL_ROWS;
+					tagLength = TOTAL_ROWS.length();
+				} else if (template.startsWith("$SQL", i)) {
+					sb.append(sql);
+					i += 4;
+					continue;
+				} else if (template.startsWith("$BODY", i)) {
+					sb.append(body);
+					i += 5;
+					continue;
+				}
+			}
+			if (slot < 0)
+				sb.append(c);
+			else {
+				literals[count] = sb.toString();
+				slots[count] = slot;
+				bindable[count] = bodyPos >= 0 && i > bodyPos;
+				count++;
+				sb.setLength(0);
+			}
+			i += tagLength;
+		}
+		literals[count] = sb.toString();
+		String[] realLiterals = new String[count + 1];
+		int[] realSlots = new int[count];
+		boolean[] realBindable = new boolean[count];
+		System.arraycopy(literals, 0, realLiterals, 0, count + 1);
+		System.arraycopy(slots, 0, realSlots, 0, count);
+		System.arraycopy(bindable, 0, realBindable, 0, count);
+		return new DialectPaginationSkeleton(realLiterals, realSlots, realBindable);
+	}
+
+	/**
+	 * Fill slots by real values, if bindValues is not null, slots after $SQL or
+	 * $BODY are filled by "?" and their values are added to bindValues
+	 */
+	String render(int skipRows, int pageSize, int totalRows, List<Object> bindValues) {
+		StringBuilder sb = new StringBuilder(literalLength + 12 * slots.length);
+		for (int i = 0; i < slots.length; i++) {
+			sb.append(literals[i]);
+			int value;
+			if (slots[i] == SLOT_SKIP_ROWS)
+				value = skipRows;
+			else if (slots[i] == SLOT_PAGESIZE)
+				value = pageSize;
+			else
+				value = totalRows;
+			if (bindValues != null && bindable[i]) {
+				sb.append('?');
+				bindValues.add(value);
+			} else
+				sb.append(value);
+		}
+		return sb.append(literals[slots.length]).toString();
+	}
+}
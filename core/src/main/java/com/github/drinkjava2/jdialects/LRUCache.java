@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdialects;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread-safe bounded cache, if capacity exceeded the least recently used
+ * entry is evicted, used to cache things like paginated SQL skeletons. All
+ * methods are synchronized, they only hold the lock for a map operation.
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public final class LRUCache<K, V> {
+	private final LinkedHashMap<K, V> map;
+
+	@SuppressWarnings("serial")
+	public LRUCache(final int capacity) {
+		if (capacity <= 0)
+			throw new DialectException("LRUCache capacity should be greater than 0");
+		map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+	/** Return cached value and mark it as recently used, return null if not found */
+	public synchronized V get(K key) {
+		return map.get(key);
+	}
+
+	/** Put a value into cache, may evict the least recently used entry */
+	public synchronized void put(K key, V value) {
+		map.put(key, value);
+	}
+
+	public synchronized int size() {
+		return map.size();
+	}
+
+	public synchronized void clear() {
+		map.clear();
+	}
+}
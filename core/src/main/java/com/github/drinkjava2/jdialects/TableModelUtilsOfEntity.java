@@ -196,11 +196,17 @@ public abstract class TableModelUtilsOfEntity {// NOSONAR
 				}
 		}
 
+		// EntityCache
+		Map<String, Object> cacheMap = getFirstEntityAnno(entityClass, "EntityCache");
+		if (!cacheMap.isEmpty())
+			model.entityCache((Integer) cacheMap.get("capacity"), (Integer) cacheMap.get("aliveSeconds"));
+
 		// SequenceGenerator
 		Map<String, Object> seqMap = getFirstEntityAnno(entityClass, "SequenceGenerator");
 		if (!seqMap.isEmpty()) {
 			model.sequenceGenerator((String) seqMap.get("name"), (String) seqMap.get("sequenceName"),
-					(Integer) seqMap.get("initialValue"), (Integer) seqMap.get("allocationSize"));
+					(Integer) seqMap.get("initialValue"), (Integer) seqMap.get("allocationSize"),
+					(Boolean) seqMap.get("pooled"));
 		}
 
 		// TableGenerator
@@ -262,7 +268,8 @@ public abstract class TableModelUtilsOfEntity {// NOSONAR
 				Map<String, Object> map = getFirstEntityAnno(field, "SequenceGenerator");
 				if (!map.isEmpty()) {
 					model.sequenceGenerator((String) map.get("name"), (String) map.get("sequenceName"),
-							(Integer) map.get("initialValue"), (Integer) map.get("allocationSize"));
+							(Integer) map.get("initialValue"), (Integer) map.get("allocationSize"),
+							(Boolean) map.get("pooled"));
 				}
 
 				// TableGenerator
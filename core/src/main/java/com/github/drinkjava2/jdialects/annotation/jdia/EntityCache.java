@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdialects.annotation.jdia;
+
+import static java.lang.annotation.ElementType.TYPE;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Mark entities of this class be cached by ORM tool's loadById and existById
+ * methods, usually used for rarely changed reference data like country or
+ * currency. Entity cache is only used when ORM tool's ConnectionManager can
+ * invalidate it after transaction end (e.g. TinyTx, Spring), otherwise it's
+ * ignored, because an entity cached during other thread's transaction may be
+ * stale after commit until aliveSeconds expired
+ * 
+ * <pre>
+ *   Example:
+ *
+ *   &#064;EntityCache(capacity = 1000, aliveSeconds = 3600)
+ * </pre>
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+@Target(TYPE)
+@Retention(RUNTIME)
+public @interface EntityCache {
+	/** Max quantity of cached entities */
+	int capacity() default 1000;
+
+	/** Seconds a cached entity alive */
+	int aliveSeconds() default 3600;
+}
@@ -75,4 +75,11 @@ public @interface SequenceGenerator {
      * sequence numbers from the sequence.
      */
     int allocationSize() default 50;
+
+    /**
+     * (Optional) jDialects extension, not in JPA. If true, each nextval
+     * reserve allocationSize ids (pooled-lo), only set it true when the
+     * sequence in database is "increment by allocationSize".
+     */
+    boolean pooled() default false;
 }
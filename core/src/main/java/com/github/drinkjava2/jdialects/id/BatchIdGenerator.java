@@ -0,0 +1,34 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdialects.id;
+
+import java.util.List;
+
+import com.github.drinkjava2.jdbpro.NormalJdbcTool;
+import com.github.drinkjava2.jdialects.Dialect;
+import com.github.drinkjava2.jdialects.Type;
+
+/**
+ * An IdGenerator can create many ids in one call faster than call getNextID
+ * many times, ORM tool's batch insert use it to create ids of all rows
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public interface BatchIdGenerator extends IdGenerator {
+	/**
+	 * Get next count IDs, parameters are same as getNextID method
+	 * 
+	 * @return a list of count ids
+	 */
+	public List<Object> getNextIDs(NormalJdbcTool jdbc, Dialect dialect, Type dataType, int count);
+}
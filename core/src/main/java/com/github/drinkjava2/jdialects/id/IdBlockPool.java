@@ -0,0 +1,269 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdialects.id;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import com.github.drinkjava2.jdbpro.NormalJdbcTool;
+import com.github.drinkjava2.jdialects.DialectException;
+
+/**
+ * IdBlockPool hand out ids of a block reserved in database from memory by an
+ * atomic counter, only when the block is used up a new block is fetched from
+ * database. For block size not less than 4, the next block is fetched in a
+ * background thread when 3/4 of current block is used, if background fetch
+ * not finished or failed, fetch it in current thread. <br/>
+ *
+ * Blocks are reserved out of current transaction: if the jdbc tool has a
+ * public getDataSource() method (e.g. DbPro, SqlBoxContext) which return a
+ * DataSource, reserve SQLs run on a new auto-commit connection of it, so a
+ * rolled back transaction can not give back a block which already handed out,
+ * and the row locked by the reserve SQL is released at once. Otherwise the jdbc
+ * tool itself is used.
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+abstract class IdBlockPool {// NOSONAR
+	private static final ExecutorService prefetcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "jdialects-id-prefetcher");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private static final Block EMPTY_BLOCK = new Block(1, 0);
+
+	/** Pools of each jdbc tool, key is decided by IdGenerator */
+	private static final Map<NormalJdbcTool, Map<String, IdBlockPool>> pools = new WeakHashMap<NormalJdbcTool, Map<String, IdBlockPool>>();// NOSONAR
+
+	private volatile Block current = EMPTY_BLOCK;
+
+	/** Next block fetched in background thread, guarded by this */
+	private Future<Block> nextBlock;
+
+	/** Only one thread switch current block, this is not the monitor of pool */
+	private final Object switchLock = new Object();
+
+	/** A reserved id block [first, last] */
+	private static class Block {
+		final AtomicLong next;
+		final long last;
+		final long prefetchAt;
+
+		Block(long first, long last) {
+			this.next = new AtomicLong(first);
+			this.last = last;
+			long size = last - first + 1;
+			this.prefetchAt = size >= 4 ? last - size / 4 : Long.MIN_VALUE;
+		}
+	}
+
+	/** Return the pool registered for given jdbc tool and key, or null */
+	static synchronized IdBlockPool findPool(NormalJdbcTool jdbc, String key) {
+		Map<String, IdBlockPool> jdbcPools = pools.get(jdbc);
+		return jdbcPools == null ? null : jdbcPools.get(key);
+	}
+
+	/**
+	 * Register a pool for given jdbc tool and key, if a pool already registered,
+	 * return the old one, otherwise return the new pool
+	 */
+	static synchronized IdBlockPool registerPool(NormalJdbcTool jdbc, String key, IdBlockPool pool) {
+		Map<String, IdBlockPool> jdbcPools = pools.get(jdbc);
+		if (jdbcPools == null) {
+			jdbcPools = new HashMap<String, IdBlockPool>();
+			pools.put(jdbc, jdbcPools);
+		}
+		IdBlockPool old = jdbcPools.get(key);
+		if (old != null)
+			return old;
+		jdbcPools.put(key, pool);
+		return pool;
+	}
+
+	/**
+	 * Reserve a new block in database, return long[]{firstId, lastId}, this method
+	 * may be called in a background thread
+	 */
+	protected abstract long[] fetchBlock(NormalJdbcTool jdbc);
+
+	/** Return next id, thread safe */
+	public long nextId(NormalJdbcTool jdbc) {
+		while (true) {// NOSONAR
+			Block block = current;
+			long id = block.next.getAndIncrement();
+			if (id <= block.last) {
+				if (id == block.prefetchAt)
+					prefetch(jdbc);
+				return id;
+			}
+			synchronized (switchLock) {
+				if (current == block)
+					current = takeNextBlock(jdbc);
+			}
+		}
+	}
+
+	private synchronized void prefetch(NormalJdbcTool jdbc) {
+		if (nextBlock != null)
+			return;
+		final NormalJdbcTool reserver = reserveJdbc(jdbc);
+		nextBlock = prefetcher.submit(new Callable<Block>() {
+			@Override
+			public Block call() {
+				return newBlock(fetchBlock(reserver));
+			}
+		});
+	}
+
+	/**
+	 * Must be called in switchLock block, the pool monitor is not held when wait
+	 * background fetch, so prefetch method never blocked by it
+	 */
+	private Block takeNextBlock(NormalJdbcTool jdbc) {
+		Future<Block> future;
+		synchronized (this) {
+			future = nextBlock;
+			nextBlock = null;
+		}
+		if (future != null)
+			try {
+				return future.get();
+			} catch (Exception e) {// NOSONAR fetch it again in current thread
+				DialectException.eatException(e);
+			}
+		return newBlock(fetchBlock(reserveJdbc(jdbc)));
+	}
+
+	/**
+	 * Return a jdbc tool run SQLs on new auto-commit connections of the
+	 * DataSource of given jdbc tool, if no DataSource found, return jdbc itself.
+	 * It's not kept in pool, because pools are weakly keyed by jdbc tool
+	 */
+	private static NormalJdbcTool reserveJdbc(NormalJdbcTool jdbc) {
+		DataSource ds = findDataSource(jdbc);
+		return ds == null ? jdbc : new AutoCommitJdbcTool(ds);
+	}
+
+	/** Call public getDataSource() method of jdbc tool if have */
+	private static DataSource findDataSource(NormalJdbcTool jdbc) {
+		try {
+			Method method = jdbc.getClass().getMethod("getDataSource");
+			Object ds = method.invoke(jdbc);
+			return ds instanceof DataSource ? (DataSource) ds : null;
+		} catch (Exception e) {// NOSONAR no getDataSource method
+			return null;
+		}
+	}
+
+	private static Block newBlock(long[] firstAndLast) {
+		if (firstAndLast == null || firstAndLast[1] < firstAndLast[0])
+			throw new DialectException("Fail to reserve id block from database");
+		return new Block(firstAndLast[0], firstAndLast[1]);
+	}
+
+	/**
+	 * A NormalJdbcTool each SQL get a new connection from DataSource, set it as
+	 * auto-commit, run the SQL and close it, not join any transaction
+	 */
+	private static class AutoCommitJdbcTool implements NormalJdbcTool {
+		private final DataSource ds;
+
+		AutoCommitJdbcTool(DataSource ds) {
+			this.ds = ds;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T nQueryForObject(String sql, Object... params) {
+			return (T) run(true, sql, params);
+		}
+
+		@Override
+		public int nUpdate(String sql, Object... params) {
+			return (Integer) run(false, sql, params);
+		}
+
+		@Override
+		public int nExecute(String sql, Object... params) {
+			return (Integer) run(false, sql, params);
+		}
+
+		private Object run(boolean query, String sql, Object... params) {
+			Connection conn = null;
+			PreparedStatement ps = null;
+			ResultSet rs = null;
+			boolean restoreAutoCommit = false;
+			try {
+				conn = ds.getConnection();
+				if (!conn.getAutoCommit()) {
+					conn.setAutoCommit(true);
+					restoreAutoCommit = true;
+				}
+				ps = conn.prepareStatement(sql);
+				for (int i = 0; i < params.length; i++)
+					ps.setObject(i + 1, params[i]);
+				if (!query)
+					return ps.executeUpdate();
+				rs = ps.executeQuery();
+				return rs.next() ? rs.getObject(1) : null;
+			} catch (SQLException e) {
+				throw new DialectException(e);
+			} finally {
+				closeQuietly(rs, ps, conn, restoreAutoCommit);
+			}
+		}
+
+		/** Close all, if restoreAutoCommit is true, set connection back to not auto-commit before close it */
+		private static void closeQuietly(ResultSet rs, PreparedStatement ps, Connection conn,
+				boolean restoreAutoCommit) {
+			try {
+				if (rs != null)
+					rs.close();
+			} catch (SQLException e) {// NOSONAR
+			}
+			try {
+				if (ps != null)
+					ps.close();
+			} catch (SQLException e) {// NOSONAR
+			}
+			try {
+				if (conn != null && restoreAutoCommit)
+					conn.setAutoCommit(false);
+			} catch (SQLException e) {// NOSONAR
+			}
+			try {
+				if (conn != null)
+					conn.close();
+			} catch (SQLException e) {// NOSONAR
+			}
+		}
+	}
+}
@@ -11,7 +11,13 @@
  */
 package com.github.drinkjava2.jdialects.id;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 import com.github.drinkjava2.jdbpro.NormalJdbcTool;
+import com.github.drinkjava2.jdialects.DDLFeatures;
 import com.github.drinkjava2.jdialects.Dialect;
 import com.github.drinkjava2.jdialects.DialectException;
 import com.github.drinkjava2.jdialects.StrUtils;
@@ -26,7 +32,7 @@ import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
  * @author Yong Zhu
  * @since 1.0.0
  */
-public class SequenceIdGenerator implements IdGenerator {
+public class SequenceIdGenerator implements BatchIdGenerator {
 
 	/**
 	 * A unique generator name that can be referenced by one or more classes to
@@ -51,6 +57,18 @@ public class SequenceIdGenerator implements IdGenerator {
 	 */
 	private Integer allocationSize = 1;
 
+	/**
+	 * If true and allocationSize>1 and dialect support pooled sequence, use
+	 * pooled-lo mode: each nextval reserve ids [nextval, nextval+allocationSize-1].
+	 * Default is false. Only set it true when the sequence in database is really
+	 * "increment by allocationSize" (e.g. created by DDL of jDialects), for a
+	 * sequence increment by 1, pooled-lo mode will hand out overlapped ids
+	 */
+	private Boolean pooled = false;
+
+	/** Cached nextval SQL of each dialect */
+	private final Map<Dialect, String> nextValSqls = new ConcurrentHashMap<Dialect, String>();
+
 	public SequenceIdGenerator() {
 		// default constructor
 	}
@@ -62,14 +80,122 @@ public class SequenceIdGenerator implements IdGenerator {
 		this.allocationSize = allocationSize;
 	}
 
- 	@Override
+	public SequenceIdGenerator(String name, String sequenceName, Integer initialValue, Integer allocationSize,
+			Boolean pooled) {
+		this(name, sequenceName, initialValue, allocationSize);
+		this.pooled = pooled;
+	}
+
+	/**
+	 * Get next sequence id. If pooled property is true and dialect support pooled
+	 * sequence, each nextval reserve allocationSize ids (pooled-lo), they are
+	 * handed out from memory, this require the sequence is "increment by
+	 * allocationSize", see pooled property. Pooled ids are Integer if in int
+	 * range (same as TableIdGenerator), or Long if dataType is BIGINT
+	 */
+	@Override
 	public Object getNextID(NormalJdbcTool jdbc, Dialect dialect, Type dataType) {
 		DialectException.assureNotEmpty(sequenceName, "sequenceName can not be empty");
-		String sequenctSQL = dialect.getDdlFeatures().getSequenceNextValString();
-		sequenctSQL = StrUtils.replace(sequenctSQL, "_SEQNAME", sequenceName);
-		return jdbc.nQueryForObject(sequenctSQL);
+		if (isPooled(dialect))
+			return toIdValue(getIdBlockPool(jdbc, dialect).nextId(jdbc), dataType);
+		return jdbc.nQueryForObject(getNextValSql(dialect));
 	}
-	 
+
+	/**
+	 * Get next count sequence ids. For pooled sequence ids are handed out from
+	 * memory, otherwise for dialects can aggregate nextval of many rows (Postgres
+	 * family, H2), fetch all ids in one query, for others call nextval count
+	 * times. Pooled ids are converted by dataType, see getNextID
+	 */
+	@Override
+	public List<Object> getNextIDs(NormalJdbcTool jdbc, Dialect dialect, Type dataType, int count) {
+		List<Object> result = new ArrayList<Object>(count);
+		if (count <= 0)
+			return result;
+		DialectException.assureNotEmpty(sequenceName, "sequenceName can not be empty");
+		if (isPooled(dialect)) {
+			IdBlockPool pool = getIdBlockPool(jdbc, dialect);
+			for (int i = 0; i < count; i++)
+				result.add(toIdValue(pool.nextId(jdbc), dataType));
+			return result;
+		}
+		String sql = count > 1 ? buildNextValuesSql(dialect, count) : null;
+		if (sql == null) {
+			for (int i = 0; i < count; i++)
+				result.add(jdbc.nQueryForObject(getNextValSql(dialect)));
+			return result;
+		}
+		String values = String.valueOf((Object) jdbc.nQueryForObject(sql));
+		for (String value : StrUtils.split(values, ','))
+			result.add(Long.parseLong(value.trim()));
+		return result;
+	}
+
+	private static Object toIdValue(long id, Type dataType) {
+		if (!Type.BIGINT.equals(dataType) && id <= Integer.MAX_VALUE && id >= Integer.MIN_VALUE)
+			return (int) id;
+		return id;
+	}
+
+	private boolean isPooled(Dialect dialect) {
+		return Boolean.TRUE.equals(pooled) && allocationSize != null && allocationSize > 1
+				&& Boolean.TRUE.equals(dialect.getDdlFeatures().getSupportsPooledSequences());
+	}
+
+	private String getNextValSql(Dialect dialect) {
+		String sql = nextValSqls.get(dialect);
+		if (sql == null) {
+			sql = dialect.getDdlFeatures().getSequenceNextValString();
+			if (StrUtils.isEmpty(sql) || DDLFeatures.NOT_SUPPORT.equals(sql))
+				throw new DialectException("Dialect '" + dialect + "' does not support sequence");
+			sql = StrUtils.replace(sql, "_SEQNAME", sequenceName);
+			nextValSqls.put(dialect, sql);
+		}
+		return sql;
+	}
+
+	/**
+	 * Build a SQL return count nextval joined by "," in one value, return null if
+	 * dialect not supported. Oracle "connect by level" can create many nextval
+	 * rows, but sequence is not allowed in aggregate, and NormalJdbcTool only
+	 * return single value, so not supported
+	 */
+	private String buildNextValuesSql(Dialect dialect, int count) {
+		if (dialect.isPostgresFamily())
+			return "select string_agg(cast(nextval('" + sequenceName + "') as varchar), ',') from generate_series(1, "
+					+ count + ")";
+		if (dialect.isH2Family())
+			return "select group_concat(x) from (select next value for " + sequenceName
+					+ " as x from system_range(1, " + count + "))";
+		return null;
+	}
+
+	private IdBlockPool getIdBlockPool(NormalJdbcTool jdbc, Dialect dialect) {
+		String key = "sequence|" + sequenceName + "|" + allocationSize;
+		IdBlockPool pool = IdBlockPool.findPool(jdbc, key);
+		if (pool == null)
+			pool = IdBlockPool.registerPool(jdbc, key,
+					new SequenceIdBlockPool(getNextValSql(dialect), allocationSize));
+		return pool;
+	}
+
+	/** Each nextval of a pooled sequence reserve ids [nextval, nextval+size-1] */
+	private static class SequenceIdBlockPool extends IdBlockPool {
+		private final String nextValSql;
+		private final long allocationSize;
+
+		SequenceIdBlockPool(String nextValSql, long allocationSize) {
+			this.nextValSql = nextValSql;
+			this.allocationSize = allocationSize;
+		}
+
+		@Override
+		protected long[] fetchBlock(NormalJdbcTool jdbc) {
+			long first = ((Number) jdbc.nQueryForObject(nextValSql)).longValue();
+			return new long[] { first, first + allocationSize - 1 };
+		}
+	}
+
 	@Override
 	public GenerationType getGenerationType() { 
 		return GenerationType.SEQUENCE;
@@ -82,7 +208,7 @@ public class SequenceIdGenerator implements IdGenerator {
 
 	@Override
 	public IdGenerator newCopy() {
-		return new SequenceIdGenerator(name,sequenceName,initialValue,allocationSize);
+		return new SequenceIdGenerator(name, sequenceName, initialValue, allocationSize, pooled);
 	}
 	
 	@Override
@@ -123,4 +249,12 @@ public class SequenceIdGenerator implements IdGenerator {
 		this.allocationSize = allocationSize;
 	}
 
+	public Boolean getPooled() {
+		return pooled;
+	}
+
+	public void setPooled(Boolean pooled) {
+		this.pooled = pooled;
+	}
+
 }
@@ -87,48 +87,87 @@ public class SnowflakeCreator {
 	private final long epoch = 1451606400000L;
 
 	/**
-	 * the unique and incrementing sequence number scoped in only one period/unit
-	 * (here is ONE millisecond). its value will be increased by 1 in the same
-	 * specified period and then reset to 0 for next period.
-	 * <p>
-	 * max: 2^12-1 range: [0,4095]
+	 * The time stamp (relative to epoch) and the sequence number of last
+	 * generated snowflake ID, packed as (timestamp &lt;&lt; sequenceBits) |
+	 * sequence, updated by CAS so no lock needed. Sequence is scoped in one
+	 * millisecond, max: 2^12-1 range: [0,4095]
 	 */
-	private long sequence = 0L;
+	private final AtomicLong lastState = new AtomicLong(-1L);
 
-	/** the time stamp last snowflake ID generated */
-	private long lastTimestamp = -1L;
+	/**
+	 * Max milliseconds the clock can move backwards (or ids borrowed from
+	 * future milliseconds when sequence overflow), in this range ids continue
+	 * use the last time stamp, default is 0, i.e. throw IllegalStateException if
+	 * clock moved backwards and wait next millisecond if sequence overflow
+	 */
+	private volatile long maxBackwardMillis = 0L;
 
 	/**
 	 * generate an unique and incrementing id
 	 *
 	 * @return id
 	 */
-	public synchronized long nextId() {
-		long currTimestamp = timestampGen();
-
-		if (currTimestamp < lastTimestamp) {
-			throw new IllegalStateException(
-					String.format("Clock moved backwards. Refusing to generate id for %d milliseconds",
-							lastTimestamp - currTimestamp));
+	public long nextId() {
+		while (true) {
+			long last = lastState.get();
+			long next = nextState(last, 1);
+			if (next >= 0 && lastState.compareAndSet(last, next))
+				return buildId(next);
 		}
+	}
 
-		if (currTimestamp == lastTimestamp) {
-			sequence = (sequence + 1) & maxSequence;
-			if (sequence == 0) { // overflow: greater than max sequence
-				currTimestamp = waitNextMillis(currTimestamp);
-			}
-
-		} else { // reset to 0 for next period/millisecond
-			sequence = 0L;
+	/**
+	 * generate n unique and incrementing ids, sequence numbers are reserved by
+	 * CAS in blocks, so it is faster than call nextId() n times
+	 *
+	 * @param n
+	 *            amount of ids
+	 * @return ids array
+	 */
+	public long[] nextIds(int n) {
+		long[] ids = new long[n];
+		int count = 0;
+		while (count < n) {
+			long last = lastState.get();
+			long next = nextState(last, n - count);
+			if (next < 0 || !lastState.compareAndSet(last, next))
+				continue;
+			long first = last >= 0 && (last >>> sequenceBits) == (next >>> sequenceBits) ? last + 1
+					: next & ~maxSequence;
+			for (long state = first; state <= next; state++)
+				ids[count++] = buildId(state);
 		}
+		return ids;
+	}
 
-		// track and memo the time stamp last snowflake ID generated
-		lastTimestamp = currTimestamp;
+	/**
+	 * Return the state after reserve max "wanted" sequence numbers in one
+	 * millisecond from last state, return -1 if need try again
+	 */
+	private long nextState(long last, int wanted) {
+		long lastTimestamp = last < 0 ? -1L : last >>> sequenceBits;
+		long sequence = last < 0 ? 0L : last & maxSequence;
+		long currTimestamp = timestampGen() - epoch;
+		if (currTimestamp > lastTimestamp) // reset to 0 for next period/millisecond
+			return (currTimestamp << sequenceBits) | Math.min(wanted - 1L, maxSequence);
+		long borrowed = lastTimestamp - currTimestamp;
+		if (borrowed > maxBackwardMillis)
+			throw new IllegalStateException(String.format(
+					"Clock moved backwards. Refusing to generate id for %d milliseconds", borrowed));
+		if (sequence < maxSequence)
+			return (lastTimestamp << sequenceBits) | Math.min(sequence + wanted, maxSequence);
+		// overflow: greater than max sequence, borrow next millisecond or wait
+		if (borrowed + 1 <= maxBackwardMillis)
+			return ((lastTimestamp + 1) << sequenceBits) | Math.min(wanted - 1L, maxSequence);
+		waitNextMillis(lastTimestamp + epoch);
+		return -1L;
+	}
 
-		return ((currTimestamp - epoch) << timestampShift) | //
+	private long buildId(long state) {
+		return ((state >>> sequenceBits) << timestampShift) | //
 				(datacenterId << datacenterIdShift) | //
 				(workerId << workerIdShift) | // new line for nice looking
-				sequence;
+				(state & maxSequence);
 	}
 
 	/**
@@ -172,18 +211,36 @@ public class SnowflakeCreator {
 	/**
 	 * running loop blocking until next millisecond
 	 * 
-	 * @param currTimestamp
-	 *            current time stamp
+	 * @param lastTimestamp
+	 *            last time stamp
 	 * @return current time stamp in millisecond
 	 */
-	protected long waitNextMillis(long currTimestamp) {
+	protected long waitNextMillis(long lastTimestamp) {
 		waitCount.incrementAndGet();
+		long currTimestamp = timestampGen();
 		while (currTimestamp <= lastTimestamp) {
 			currTimestamp = timestampGen();
 		}
 		return currTimestamp;
 	}
 
+	/**
+	 * @return max milliseconds the clock can move backwards
+	 */
+	public long getMaxBackwardMillis() {
+		return maxBackwardMillis;
+	}
+
+	/**
+	 * Set max milliseconds the clock can move backwards, in this range ids are
+	 * borrowed from the sequence space of last time stamp and future
+	 * milliseconds, instead of throw IllegalStateException
+	 */
+	public SnowflakeCreator setMaxBackwardMillis(long maxBackwardMillis) {
+		this.maxBackwardMillis = maxBackwardMillis;
+		return this;
+	}
+
 	/**
 	 * get current time stamp
 	 * 
@@ -13,6 +13,7 @@ package com.github.drinkjava2.jdialects.id;
 
 import com.github.drinkjava2.jdbpro.NormalJdbcTool;
 import com.github.drinkjava2.jdialects.Dialect;
+import com.github.drinkjava2.jdialects.DialectException;
 import com.github.drinkjava2.jdialects.Type;
 import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
 
@@ -98,25 +99,73 @@ public class TableIdGenerator implements IdGenerator {
 	}
 
 	/**
-	 * Get the next Table Generator ID
+	 * Get the next Table Generator ID. Ids are reserved from database in blocks of
+	 * allocationSize ids, and handed out from memory, the ids pool is shared by
+	 * all TableIdGenerators use same jdbc tool and same generator row setting
 	 */
 	@Override
 	public Object getNextID(NormalJdbcTool jdbc, Dialect dialect, Type dataType) {
-		int countOfRec = ((Number) jdbc // NOSONAR
-				.nQueryForObject("select count(*) from " + table + " where " + pkColumnName + "=?", pkColumnValue))
-						.intValue();
-		if (countOfRec == 0) {
-			jdbc.nUpdate("insert into " + table + "( " + pkColumnName + "," + valueColumnName + " )  values(?,?)",
-					pkColumnValue, initialValue);
-			return initialValue;
-		} else {
-			jdbc.nUpdate("update " + table + " set " + valueColumnName + "=" + valueColumnName + "+" + allocationSize
-					+ "  where " + pkColumnName + " =?", pkColumnValue);
-
-			int last = ((Number) jdbc.nQueryForObject( // NOSONAR
-					"select " + valueColumnName + " from " + table + " where " + pkColumnName + "=?", pkColumnValue))
-							.intValue();
-			return last;
+		long id = getIdBlockPool(jdbc).nextId(jdbc);
+		if (id <= Integer.MAX_VALUE && id >= Integer.MIN_VALUE)
+			return (int) id;
+		return id;
+	}
+
+	private IdBlockPool getIdBlockPool(NormalJdbcTool jdbc) {
+		String key = "table|" + table + "|" + pkColumnName + "|" + valueColumnName + "|" + pkColumnValue + "|"
+				+ initialValue + "|" + allocationSize;
+		IdBlockPool pool = IdBlockPool.findPool(jdbc, key);
+		if (pool == null)
+			pool = IdBlockPool.registerPool(jdbc, key, new TableIdBlockPool(table, pkColumnName, valueColumnName,
+					pkColumnValue, initialValue == null ? 0 : initialValue, allocationSize == null ? 1 : allocationSize));
+		return pool;
+	}
+
+	/**
+	 * Reserve ids block by compare-and-set the value column, so no transaction
+	 * needed, the value column store the last reserved id
+	 */
+	private static class TableIdBlockPool extends IdBlockPool {
+		private static final int MAX_TRY_TIMES = 100;
+		private final String selectSql;
+		private final String insertSql;
+		private final String updateSql;
+		private final String pkColumnValue;
+		private final long initialValue;
+		private final long allocationSize;
+
+		TableIdBlockPool(String table, String pkColumnName, String valueColumnName, String pkColumnValue,
+				long initialValue, long allocationSize) {
+			this.selectSql = "select " + valueColumnName + " from " + table + " where " + pkColumnName + "=?";
+			this.insertSql = "insert into " + table + "( " + pkColumnName + "," + valueColumnName
+					+ " )  values(?,?)";
+			this.updateSql = "update " + table + " set " + valueColumnName + "=?  where " + pkColumnName + "=? and "
+					+ valueColumnName + "=?";
+			this.pkColumnValue = pkColumnValue;
+			this.initialValue = initialValue;
+			this.allocationSize = allocationSize < 1 ? 1 : allocationSize;
+		}
+
+		@Override
+		protected long[] fetchBlock(NormalJdbcTool jdbc) {
+			for (int i = 0; i < MAX_TRY_TIMES; i++) {
+				Object value = jdbc.nQueryForObject(selectSql, pkColumnValue);
+				if (value == null) {
+					long last = initialValue + allocationSize - 1;
+					try {
+						jdbc.nUpdate(insertSql, pkColumnValue, last);
+						return new long[] { initialValue, last };
+					} catch (RuntimeException e) {// NOSONAR inserted by others, try again
+						DialectException.eatException(e);
+						continue;
+					}
+				}
+				long current = ((Number) value).longValue();
+				long last = current + allocationSize;
+				if (jdbc.nUpdate(updateSql, last, pkColumnValue, current) == 1)
+					return new long[] { current + 1, last };
+			}
+			throw new DialectException("Fail to reserve ids from table after tried " + MAX_TRY_TIMES + " times");
 		}
 	}
 
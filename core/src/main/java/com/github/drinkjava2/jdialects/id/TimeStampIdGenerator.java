@@ -11,6 +11,8 @@
  */
 package com.github.drinkjava2.jdialects.id;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import com.github.drinkjava2.jdbpro.NormalJdbcTool;
 import com.github.drinkjava2.jdialects.Dialect;
 import com.github.drinkjava2.jdialects.Type;
@@ -26,7 +28,12 @@ import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
  */
 public class TimeStampIdGenerator implements IdGenerator {
 	public static final TimeStampIdGenerator INSTANCE = new TimeStampIdGenerator();
-	private static long count = 1;
+
+	/** Max ids can be created in one millisecond */
+	private static final long IDS_PER_MILLIS = 1000000L;
+
+	/** The last created id, updated by CAS */
+	private static final AtomicLong lastId = new AtomicLong(0);
 
 	@Override
 	public GenerationType getGenerationType() {
@@ -38,17 +45,21 @@ public class TimeStampIdGenerator implements IdGenerator {
 		return "TimeStampId";
 	}
 
-	private static synchronized long getNextCount() {
-		if (count > 999999)
-			count = 1;
-		return ++count;
-	}
-
+	/**
+	 * Return current time millis * 1000000 + counter, the counter is not reset
+	 * but increase from last id, if more than 1000000 ids created in one
+	 * millisecond or clock moved backwards, id borrow the space of next
+	 * milliseconds, so ids are always unique and increasing in one JVM
+	 */
 	@Override
 	public Object getNextID(NormalJdbcTool jdbc, Dialect dialect, Type dataType) {
-		if (count > 999999)
-			count = 1;
-		return System.currentTimeMillis() * 1000000 + getNextCount();
+		long base = System.currentTimeMillis() * IDS_PER_MILLIS;
+		while (true) {
+			long last = lastId.get();
+			long next = last >= base ? last + 1 : base + 1;
+			if (lastId.compareAndSet(last, next))
+				return next;
+		}
 	}
 
 	@Override
@@ -11,8 +11,7 @@
  */
 package com.github.drinkjava2.jdialects.id;
 
-import java.math.BigInteger;
-import java.util.UUID;
+import java.util.List;
 
 import com.github.drinkjava2.jdbpro.NormalJdbcTool;
 import com.github.drinkjava2.jdialects.Dialect;
@@ -27,7 +26,7 @@ import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
  * @version 1.0.0
  * @since 1.0.0
  */
-public class UUID25Generator implements IdGenerator {
+public class UUID25Generator implements BatchIdGenerator {
 	public static final UUID25Generator INSTANCE = new UUID25Generator();
 
 	@Override
@@ -42,7 +41,12 @@ public class UUID25Generator implements IdGenerator {
 
 	@Override
 	public Object getNextID(NormalJdbcTool jdbc, Dialect dialect, Type dataType) {
-		return get25LettersRadix36UUID();
+		return UUIDCreator.uuid25();
+	}
+
+	@Override
+	public List<Object> getNextIDs(NormalJdbcTool jdbc, Dialect dialect, Type dataType, int count) {
+		return UUIDCreator.toObjectList(UUIDCreator.uuidAnys(25, count));
 	}
 
 	@Override
@@ -55,13 +59,4 @@ public class UUID25Generator implements IdGenerator {
 		return INSTANCE;
 	}
 
-	private static String get25LettersRadix36UUID() {
-		String uuidHex = UUID.randomUUID().toString().replaceAll("-", "");
-		BigInteger b = new BigInteger(uuidHex, 16);
-		String s = b.toString(36);
-		while (s.length() < 25)
-			s = s + "0";// NOSONAR
-		return s;
-	}
-
 }
@@ -11,7 +11,7 @@
  */
 package com.github.drinkjava2.jdialects.id;
 
-import java.util.UUID;
+import java.util.List;
 
 import com.github.drinkjava2.jdbpro.NormalJdbcTool;
 import com.github.drinkjava2.jdialects.Dialect;
@@ -26,7 +26,7 @@ import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
  * @version 1.0.0
  * @since 1.0.0
  */
-public class UUID32Generator implements IdGenerator {
+public class UUID32Generator implements BatchIdGenerator {
 	public static final UUID32Generator INSTANCE = new UUID32Generator();
 
 	@Override
@@ -41,7 +41,12 @@ public class UUID32Generator implements IdGenerator {
 
 	@Override
 	public Object getNextID(NormalJdbcTool jdbc, Dialect dialect, Type dataType) {
-		return UUID.randomUUID().toString().replaceAll("-", "");
+		return UUIDCreator.uuid32();
+	}
+
+	@Override
+	public List<Object> getNextIDs(NormalJdbcTool jdbc, Dialect dialect, Type dataType, int count) {
+		return UUIDCreator.toObjectList(UUIDCreator.uuid32s(count));
 	}
 
 	@Override
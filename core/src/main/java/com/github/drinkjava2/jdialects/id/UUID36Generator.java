@@ -11,7 +11,7 @@
  */
 package com.github.drinkjava2.jdialects.id;
 
-import java.util.UUID;
+import java.util.List;
 
 import com.github.drinkjava2.jdbpro.NormalJdbcTool;
 import com.github.drinkjava2.jdialects.Dialect;
@@ -27,7 +27,7 @@ import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
  * @version 1.0.0
  * @since 1.0.0
  */
-public class UUID36Generator implements IdGenerator {
+public class UUID36Generator implements BatchIdGenerator {
 	public static final UUID36Generator INSTANCE = new UUID36Generator();
 
 	@Override
@@ -42,7 +42,12 @@ public class UUID36Generator implements IdGenerator {
 
 	@Override
 	public Object getNextID(NormalJdbcTool jdbc, Dialect dialect, Type dataType) {
-		return UUID.randomUUID().toString();
+		return UUIDCreator.uuid36();
+	}
+
+	@Override
+	public List<Object> getNextIDs(NormalJdbcTool jdbc, Dialect dialect, Type dataType, int count) {
+		return UUIDCreator.toObjectList(UUIDCreator.uuid36s(count));
 	}
 
 	@Override
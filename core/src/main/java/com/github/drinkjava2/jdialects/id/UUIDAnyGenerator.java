@@ -11,7 +11,7 @@
  */
 package com.github.drinkjava2.jdialects.id;
 
-import java.security.SecureRandom;
+import java.util.List;
 
 import com.github.drinkjava2.jdbpro.NormalJdbcTool;
 import com.github.drinkjava2.jdialects.Dialect;
@@ -27,10 +27,7 @@ import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
  * @version 1.0.0
  * @since 1.0.0
  */
-public class UUIDAnyGenerator implements IdGenerator {
-
-	private static final SecureRandom random = new SecureRandom();
-	private static final char[] ALPHABET = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+public class UUIDAnyGenerator implements BatchIdGenerator {
 
 	private String name;
 	private Integer length = 36;
@@ -62,6 +59,11 @@ public class UUIDAnyGenerator implements IdGenerator {
 		return getAnyLengthRadix36UUID(length);
 	}
 
+	@Override
+	public List<Object> getNextIDs(NormalJdbcTool jdbc, Dialect dialect, Type dataType, int count) {
+		return UUIDCreator.toObjectList(UUIDCreator.uuidAnys(length, count));
+	}
+
 	@Override
 	public Boolean dependOnAutoIdGenerator() {
 		return false;
@@ -73,11 +75,7 @@ public class UUIDAnyGenerator implements IdGenerator {
 	}
 
 	protected static String getAnyLengthRadix36UUID(Integer length) {
-		StringBuilder sb = new StringBuilder();
-		for (int i = 0; i < length; i++) {
-			sb.append(ALPHABET[random.nextInt(32)]);
-		}
-		return sb.toString();
+		return UUIDCreator.uuidAny(length);
 	}
 
 	// getter & setter
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jdialects.id;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * UUIDCreator is the random backend of UUID25/UUID32/UUID36/UUIDAny
+ * generators. Each thread has its own random generator and a buffer of random
+ * bytes, ids are encoded into a per-thread char buffer, so threads never
+ * contend on one shared SecureRandom like UUID.randomUUID() does. <br/>
+ *
+ * By default each thread use its own SecureRandom, call
+ * UUIDCreator.setSecureRandom(false) to use a java.util.Random seeded by
+ * SecureRandom instead, it's faster but ids are predictable if someone saw
+ * enough ids of same thread.
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public abstract class UUIDCreator {// NOSONAR
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	private static final char[] RADIX36 = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+	private static final int RANDOM_BUFFER_SIZE = 512;
+
+	/** Bytes not less than this are dropped to keep radix-36 chars unbiased */
+	private static final int RADIX36_LIMIT = 252;
+
+	private static final SecureRandom seeder = new SecureRandom();
+
+	private static volatile boolean secureRandom = true;// NOSONAR
+
+	private static final ThreadLocal<Buffer> buffers = new ThreadLocal<Buffer>() {
+		@Override
+		protected Buffer initialValue() {
+			return new Buffer(secureRandom);
+		}
+	};
+
+	/** Per-thread random bytes and char buffer */
+	private static class Buffer {
+		final boolean secure;
+		final Random random;
+		final byte[] bytes = new byte[RANDOM_BUFFER_SIZE];
+		int pos = RANDOM_BUFFER_SIZE;
+		char[] chars = new char[64];
+
+		Buffer(boolean secure) {
+			this.secure = secure;
+			if (secure)
+				random = new SecureRandom();
+			else
+				synchronized (seeder) {
+					random = new Random(seeder.nextLong());
+				}
+		}
+
+		int nextByte() {
+			if (pos == RANDOM_BUFFER_SIZE) {
+				random.nextBytes(bytes);
+				pos = 0;
+			}
+			return bytes[pos++] & 0xff;
+		}
+
+		char[] chars(int length) {
+			if (chars.length < length)
+				chars = new char[length];
+			return chars;
+		}
+	}
+
+	private static Buffer buffer() {
+		Buffer buf = buffers.get();
+		if (buf.secure != secureRandom) {
+			buf = new Buffer(secureRandom);
+			buffers.set(buf);
+		}
+		return buf;
+	}
+
+	/** Return a random version 4 UUID in 36 letters, like UUID.toString() */
+	public static String uuid36() {
+		return uuidHex(buffer(), true);
+	}
+
+	/** Return a random version 4 UUID in 32 letters hex without "-" */
+	public static String uuid32() {
+		return uuidHex(buffer(), false);
+	}
+
+	/** Return a random 25 letters radix-36 UUID, it has 129 bits randomness */
+	public static String uuid25() {
+		return uuidRadix36(buffer(), 25);
+	}
+
+	/** Return a random radix-36 UUID of given length */
+	public static String uuidAny(int length) {
+		return uuidRadix36(buffer(), length);
+	}
+
+	/** Copy UUIDs into a new List<Object>, used by getNextIDs of generators */
+	static List<Object> toObjectList(String[] uuids) {
+		List<Object> result = new ArrayList<Object>(uuids.length);
+		for (String uuid : uuids)
+			result.add(uuid);
+		return result;
+	}
+
+	/** Return count UUIDs created by uuid36() */
+	public static String[] uuid36s(int count) {
+		Buffer buf = buffer();
+		String[] result = new String[count];
+		for (int i = 0; i < count; i++)
+			result[i] = uuidHex(buf, true);
+		return result;
+	}
+
+	/** Return count UUIDs created by uuid32() */
+	public static String[] uuid32s(int count) {
+		Buffer buf = buffer();
+		String[] result = new String[count];
+		for (int i = 0; i < count; i++)
+			result[i] = uuidHex(buf, false);
+		return result;
+	}
+
+	/** Return count UUIDs created by uuidAny(length) */
+	public static String[] uuidAnys(int length, int count) {
+		Buffer buf = buffer();
+		String[] result = new String[count];
+		for (int i = 0; i < count; i++)
+			result[i] = uuidRadix36(buf, length);
+		return result;
+	}
+
+	private static String uuidHex(Buffer buf, boolean dash) {
+		char[] chars = buf.chars(36);
+		int pos = 0;
+		for (int i = 0; i < 16; i++) {
+			int b = buf.nextByte();
+			if (i == 6)
+				b = (b & 0x0f) | 0x40; // version 4
+			else if (i == 8)
+				b = (b & 0x3f) | 0x80; // IETF variant
+			if (dash && (i == 4 || i == 6 || i == 8 || i == 10))
+				chars[pos++] = '-';
+			chars[pos++] = HEX[b >>> 4];
+			chars[pos++] = HEX[b & 0x0f];
+		}
+		return new String(chars, 0, pos);
+	}
+
+	private static String uuidRadix36(Buffer buf, int length) {
+		char[] chars = buf.chars(length);
+		int i = 0;
+		while (i < length) {
+			int b = buf.nextByte();
+			if (b < RADIX36_LIMIT)
+				chars[i++] = RADIX36[b % 36];
+		}
+		return new String(chars, 0, length);
+	}
+
+	/** Return true if each thread use a SecureRandom, default is true */
+	public static boolean isSecureRandom() {
+		return secureRandom;
+	}
+
+	/**
+	 * Set use SecureRandom (true) or java.util.Random seeded by SecureRandom
+	 * (false) for threads, take effect at next UUID creation of each thread
+	 */
+	public static void setSecureRandom(boolean secureRandom) {
+		UUIDCreator.secureRandom = secureRandom;
+	}
+}
@@ -197,18 +197,21 @@ public class ColumnModel {
 	/** Mark primary key, if more than one will build compound Primary key */
 	public ColumnModel pkey() {
 		this.pkey = true;
+		clearTableColumnIndexes();
 		return this;
 	}
 
 	/** Mark is a shartTable column, for ORM tool use */
 	public ColumnModel shardTable(String... shardTable) {
 		this.shardTable = shardTable;
+		clearTableColumnIndexes();
 		return this;
 	}
 
 	/** Mark is a shartDatabase column, for ORM tool use */
 	public ColumnModel shardDatabase(String... shardDatabase) {
 		this.shardDatabase = shardDatabase;
+		clearTableColumnIndexes();
 		return this;
 	}
 
@@ -218,6 +221,7 @@ public class ColumnModel {
 	 */
 	public ColumnModel id() {
 		this.pkey = true;
+		clearTableColumnIndexes();
 		return this;
 	}
 
@@ -310,8 +314,17 @@ public class ColumnModel {
 	/** The value of this column will be generated by a sequence */
 	public ColumnModel sequenceGenerator(String name, String sequenceName, Integer initialValue,
 			Integer allocationSize) {
+		return sequenceGenerator(name, sequenceName, initialValue, allocationSize, false);
+	}
+
+	/**
+	 * The value of this column will be generated by a sequence, if pooled is
+	 * true, each nextval reserve allocationSize ids (pooled-lo)
+	 */
+	public ColumnModel sequenceGenerator(String name, String sequenceName, Integer initialValue,
+			Integer allocationSize, Boolean pooled) {
 		makeSureTableModelExist();
-		this.tableModel.sequenceGenerator(name, sequenceName, initialValue, allocationSize);
+		this.tableModel.sequenceGenerator(name, sequenceName, initialValue, allocationSize, pooled);
 		this.idGenerationType = GenerationType.SEQUENCE;
 		this.idGeneratorName = name;
 		return this;
@@ -363,6 +376,7 @@ public class ColumnModel {
 						&& !this.getColumnName().equals(column.getColumnName()))
 					columnIter.remove();
 			}
+			clearTableColumnIndexes();
 		}
 		return this;
 	}
@@ -383,6 +397,12 @@ public class ColumnModel {
 		return DebugUtils.getColumnModelDebugInfo(this);
 	}
 
+	/** Column name, field, pkey or shard changed, owner's column indexes expired */
+	private void clearTableColumnIndexes() {
+		if (tableModel != null)
+			tableModel.clearColumnIndexes();
+	}
+
 	public void checkReadOnly() {
 		if (tableModel != null && tableModel.getReadOnly())
 			throw new DialectException("TableModel '" + tableModel.getTableName() + "' is readOnly, can not be modified.");
@@ -431,6 +451,7 @@ public class ColumnModel {
 
 	public void setColumnName(String columnName) {
 		this.columnName = columnName;
+		clearTableColumnIndexes();
 	}
 
 	public TableModel getTableModel() {
@@ -455,6 +476,7 @@ public class ColumnModel {
 
 	public void setPkey(Boolean pkey) {
 		this.pkey = pkey;
+		clearTableColumnIndexes();
 	}
 
 	public Boolean getNullable() {
@@ -527,6 +549,7 @@ public class ColumnModel {
 
 	public void setEntityField(String entityField) {
 		this.entityField = entityField;
+		clearTableColumnIndexes();
 	}
 
 	public Integer getLength() {
@@ -575,6 +598,7 @@ public class ColumnModel {
 
 	public void setTransientable(Boolean transientable) {
 		this.transientable = transientable;
+		clearTableColumnIndexes();
 	}
 
 	public String[] getShardTable() {
@@ -583,6 +607,7 @@ public class ColumnModel {
 
 	public void setShardTable(String[] shardTable) {
 		this.shardTable = shardTable;
+		clearTableColumnIndexes();
 	}
 
 	public String[] getShardDatabase() {
@@ -591,6 +616,7 @@ public class ColumnModel {
 
 	public void setShardDatabase(String[] shardDatabase) {
 		this.shardDatabase = shardDatabase;
+		clearTableColumnIndexes();
 	}
 
  
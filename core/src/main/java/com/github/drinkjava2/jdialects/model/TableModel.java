@@ -14,8 +14,10 @@ package com.github.drinkjava2.jdialects.model;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import com.github.drinkjava2.jdialects.DebugUtils;
 import com.github.drinkjava2.jdialects.DialectException;
@@ -79,8 +81,63 @@ public class TableModel {
 	 */
 	private Class<?> entityClass;
 
+	/**
+	 * Optional, if not null, ORM tool cache entities of this table in memory for
+	 * loadById and existById methods, max entities quantity
+	 */
+	private Integer entityCacheCapacity;
+
+	/** Optional, seconds a cached entity alive */
+	private Integer entityCacheAliveSeconds;
+
 	private Boolean readOnly = false;
 
+	/**
+	 * Case-insensitive hash indexes of columns, built lazily, cleared when
+	 * columns changed, for read-only model it's built once and never changed
+	 */
+	private volatile ColumnIndexes columnIndexes;
+
+	/** Immutable indexes of columns, keys are lower case names */
+	private static class ColumnIndexes {
+		final List<ColumnModel> columnList;
+		final int columnSize;
+		final Map<String, ColumnModel> byColName = new HashMap<String, ColumnModel>();
+		final Map<String, ColumnModel> byFieldName = new HashMap<String, ColumnModel>();
+		final Map<String, ColumnModel> byColOrFieldName = new HashMap<String, ColumnModel>();
+		final List<ColumnModel> pkeyColumns = new ArrayList<ColumnModel>();
+		ColumnModel shardTableColumn;
+		ColumnModel shardDatabaseColumn;
+
+		ColumnIndexes(List<ColumnModel> columns) {
+			this.columnList = columns;
+			this.columnSize = columns.size();
+			for (ColumnModel col : columns) {// first found wins, same as linear search
+				String colName = col.getColumnName() == null ? null : col.getColumnName().toLowerCase();
+				String fieldName = col.getEntityField() == null ? null : col.getEntityField().toLowerCase();
+				if (colName != null) {
+					putIfAbsent(byColName, colName, col);
+					putIfAbsent(byColOrFieldName, colName, col);
+				}
+				if (fieldName != null) {
+					putIfAbsent(byFieldName, fieldName, col);
+					putIfAbsent(byColOrFieldName, fieldName, col);
+				}
+				if (col.getPkey() && !col.getTransientable())
+					pkeyColumns.add(col);
+				if (shardTableColumn == null && col.getShardTable() != null)
+					shardTableColumn = col;
+				if (shardDatabaseColumn == null && col.getShardDatabase() != null)
+					shardDatabaseColumn = col;
+			}
+		}
+
+		private static void putIfAbsent(Map<String, ColumnModel> map, String key, ColumnModel col) {
+			if (!map.containsKey(key))
+				map.put(key, col);
+		}
+	}
+
 	public TableModel() {
 		super();
 	}
@@ -99,6 +156,8 @@ public class TableModel {
 		tb.comment = this.comment;
 		tb.engineTail = this.engineTail;
 		tb.entityClass = this.entityClass;
+		tb.entityCacheCapacity = this.entityCacheCapacity;
+		tb.entityCacheAliveSeconds = this.entityCacheAliveSeconds;
 		if (!columns.isEmpty())
 			for (ColumnModel item : columns) {
 				ColumnModel newItem = item.newCopy();
@@ -132,6 +191,16 @@ public class TableModel {
 				allocationSize));
 	}
 
+	/**
+	 * Cache entities of this table in memory for ORM tool's loadById and
+	 * existById methods
+	 */
+	public void entityCache(Integer capacity, Integer aliveSeconds) {
+		checkReadOnly();
+		this.entityCacheCapacity = capacity;
+		this.entityCacheAliveSeconds = aliveSeconds;
+	}
+
 	/** Add a UUIDAnyGenerator */
 	public void uuidAny(String name, Integer length) {
 		checkReadOnly();
@@ -162,8 +231,17 @@ public class TableModel {
 	 *            The allocationSize
 	 */
 	public void sequenceGenerator(String name, String sequenceName, Integer initialValue, Integer allocationSize) {
+		sequenceGenerator(name, sequenceName, initialValue, allocationSize, false);
+	}
+
+	/**
+	 * Add a sequence definition DDL, if pooled is true, each nextval reserve
+	 * allocationSize ids (pooled-lo), see SequenceIdGenerator's pooled property
+	 */
+	public void sequenceGenerator(String name, String sequenceName, Integer initialValue, Integer allocationSize,
+			Boolean pooled) {
 		checkReadOnly();
-		this.addGenerator(new SequenceIdGenerator(name, sequenceName, initialValue, allocationSize));
+		this.addGenerator(new SequenceIdGenerator(name, sequenceName, initialValue, allocationSize, pooled));
 	}
 
 	/**
@@ -204,6 +282,7 @@ public class TableModel {
 		DialectException.assureNotEmpty(column.getColumnName(), "Column's columnName can not be empty");
 		column.setTableModel(this);
 		columns.add(column);
+		clearColumnIndexes();
 		return this;
 	}
 
@@ -217,6 +296,7 @@ public class TableModel {
 		while (columnIter.hasNext())
 			if (columnIter.next().getColumnName().equalsIgnoreCase(columnName))
 				columnIter.remove();
+		clearColumnIndexes();
 		return this;
 	}
 
@@ -238,12 +318,9 @@ public class TableModel {
 	 * with columnName
 	 */
 	public ColumnModel column(String columnName) {// NOSONAR
-		for (ColumnModel columnModel : columns) {
-			if (columnModel.getColumnName() != null && columnModel.getColumnName().equalsIgnoreCase(columnName))
-				return columnModel;
-			if (columnModel.getEntityField() != null && columnModel.getEntityField().equalsIgnoreCase(columnName))
-				return columnModel;
-		}
+		ColumnModel columnModel = getColumn(columnName);
+		if (columnModel != null)
+			return columnModel;
 		return addColumn(columnName);
 	}
 
@@ -256,9 +333,8 @@ public class TableModel {
 	public ColumnModel addColumn(String columnName) {
 		checkReadOnly();
 		DialectException.assureNotEmpty(columnName, "columnName can not be empty");
-		for (ColumnModel columnModel : columns)
-			if (columnName.equalsIgnoreCase(columnModel.getColumnName()))
-				throw new DialectException("ColumnModel name '" + columnName + "' already existed");
+		if (getColumnByColName(columnName) != null)
+			throw new DialectException("ColumnModel name '" + columnName + "' already existed");
 		ColumnModel column = new ColumnModel(columnName);
 		addColumn(column);
 		return column;
@@ -269,54 +345,41 @@ public class TableModel {
 	 * return null
 	 */
 	public ColumnModel getColumn(String colOrFieldName) {
-		for (ColumnModel columnModel : columns) {
-			if (columnModel.getColumnName() != null && columnModel.getColumnName().equalsIgnoreCase(colOrFieldName))
-				return columnModel;
-			if (columnModel.getEntityField() != null && columnModel.getEntityField().equalsIgnoreCase(colOrFieldName))
-				return columnModel;
-		}
-		return null;
+		if (colOrFieldName == null)
+			return null;
+		return getColumnIndexes().byColOrFieldName.get(colOrFieldName.toLowerCase());
 	}
 
 	/**
 	 * Get ColumnModel by columnName ignore case, if not found, return null
 	 */
 	public ColumnModel getColumnByColName(String colName) {
-		for (ColumnModel columnModel : columns) {
-			if (columnModel.getColumnName() != null && columnModel.getColumnName().equalsIgnoreCase(colName))
-				return columnModel;
-		}
-		return null;
+		if (colName == null)
+			return null;
+		return getColumnIndexes().byColName.get(colName.toLowerCase());
 	}
 
 	/**
 	 * Get ColumnModel by entity field name ignore case, if not found, return null
 	 */
 	public ColumnModel getColumnByFieldName(String fieldName) {
-		for (ColumnModel columnModel : columns)
-			if (columnModel.getEntityField() != null && columnModel.getEntityField().equalsIgnoreCase(fieldName))
-				return columnModel;
-		return null;
+		if (fieldName == null)
+			return null;
+		return getColumnIndexes().byFieldName.get(fieldName.toLowerCase());
 	}
 
 	/**
 	 * @return First found ShardTable Column , if not found , return null
 	 */
 	public ColumnModel getShardTableColumn() {
-		for (ColumnModel columnModel : columns)
-			if (columnModel.getShardTable() != null)
-				return columnModel;// return first found only
-		return null;
+		return getColumnIndexes().shardTableColumn;// return first found only
 	}
 
 	/**
 	 * @return First found ShardDatabase Column , if not found , return null
 	 */
 	public ColumnModel getShardDatabaseColumn() {
-		for (ColumnModel columnModel : columns)
-			if (columnModel.getShardDatabase() != null)
-				return columnModel;// return first found only
-		return null;
+		return getColumnIndexes().shardDatabaseColumn;// return first found only
 	}
 
 	/**
@@ -485,27 +548,18 @@ public class TableModel {
 	}
 
 	public int getPKeyCount() {
-		int pkeyCount = 0;
-		for (ColumnModel col : columns)
-			if (col.getPkey() && !col.getTransientable())
-				pkeyCount++;
-		return pkeyCount;
+		return getColumnIndexes().pkeyColumns.size();
 	}
 
 	public ColumnModel getFirstPKeyColumn() {
-		for (ColumnModel col : columns)
-			if (col.getPkey() && !col.getTransientable())
-				return col;
-		return null;
+		List<ColumnModel> pkeyCols = getColumnIndexes().pkeyColumns;
+		return pkeyCols.isEmpty() ? null : pkeyCols.get(0);
 	}
 
 	/** Get pkey columns sorted by column name */
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	public List<ColumnModel> getPKeyColsSortByColumnName() {
-		List<ColumnModel> pkeyCols = new ArrayList<ColumnModel>();
-		for (ColumnModel col : columns)
-			if (col.getPkey() && !col.getTransientable())
-				pkeyCols.add(col);
+		List<ColumnModel> pkeyCols = new ArrayList<ColumnModel>(getColumnIndexes().pkeyColumns);
 		Collections.sort(pkeyCols, new Comparator() {
 			public int compare(Object o1, Object o2) {
 				return ((ColumnModel) o1).getColumnName().compareTo(((ColumnModel) o1).getColumnName());
@@ -518,6 +572,25 @@ public class TableModel {
 		return DebugUtils.getTableModelDebugInfo(this);
 	}
 
+	/**
+	 * Return column indexes, rebuild it if cleared or columns list be changed
+	 * directly, read-only model's indexes never rebuild
+	 */
+	private ColumnIndexes getColumnIndexes() {
+		ColumnIndexes indexes = columnIndexes;
+		if (indexes != null && (readOnly || (indexes.columnList == columns && indexes.columnSize == columns.size())))
+			return indexes;
+		indexes = new ColumnIndexes(columns);
+		columnIndexes = indexes;
+		return indexes;
+	}
+
+	/** Clear column indexes, called when columns or their names changed */
+	void clearColumnIndexes() {
+		if (!readOnly)
+			columnIndexes = null;
+	}
+
 	private void checkReadOnly() {
 		if (readOnly)
 			throw new DialectException("TableModel '" + tableName + "' is readOnly, can not be modified.");
@@ -561,6 +634,7 @@ public class TableModel {
 	public void setColumns(List<ColumnModel> columns) {
 		checkReadOnly();
 		this.columns = columns;
+		clearColumnIndexes();
 	}
 
 	public List<FKeyModel> getFkeyConstraints() {
@@ -625,12 +699,32 @@ public class TableModel {
 		this.entityClass = entityClass;
 	}
 
+	public Integer getEntityCacheCapacity() {
+		return entityCacheCapacity;
+	}
+
+	public void setEntityCacheCapacity(Integer entityCacheCapacity) {
+		checkReadOnly();
+		this.entityCacheCapacity = entityCacheCapacity;
+	}
+
+	public Integer getEntityCacheAliveSeconds() {
+		return entityCacheAliveSeconds;
+	}
+
+	public void setEntityCacheAliveSeconds(Integer entityCacheAliveSeconds) {
+		checkReadOnly();
+		this.entityCacheAliveSeconds = entityCacheAliveSeconds;
+	}
+
 	public Boolean getReadOnly() {
 		return readOnly;
 	}
 
 	public void setReadOnly(Boolean readOnly) {
 		this.readOnly = readOnly;
+		if (readOnly != null && readOnly)
+			columnIndexes = new ColumnIndexes(columns); // freeze indexes
 	}
 
 }
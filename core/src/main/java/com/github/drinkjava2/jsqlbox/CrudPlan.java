@@ -0,0 +1,317 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jsqlbox;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.drinkjava2.jdialects.BeanAccessor;
+import com.github.drinkjava2.jdialects.StrUtils;
+import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
+import com.github.drinkjava2.jdialects.id.IdGenerator;
+import com.github.drinkjava2.jdialects.model.ColumnModel;
+import com.github.drinkjava2.jdialects.model.TableModel;
+
+/**
+ * CrudPlan store the SQL text and the ordered columns of entity CRUD methods
+ * of one read-only TableModel, so entityInsert/Update/Load/DeleteById/Exist
+ * only need extract parameters and execute. <br/>
+ *
+ * A plan is only "supported" for ordinary models, if a model has sharding
+ * columns, columns not mapped to entity field, no primary key or bad id
+ * generator setting, CRUD methods fall back to build SQL on each call, which
+ * also throw the original exceptions.
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class CrudPlan {// NOSONAR
+	/** Normal column, parameter value read from bean */
+	public static final int VALUE_COLUMN = 0;
+	/** Id column, parameter value created by SnowflakeCreator of SqlBoxContext */
+	public static final int SNOWFLAKE_COLUMN = 1;
+	/** Id column, parameter value created by its IdGenerator */
+	public static final int ID_GENERATOR_COLUMN = 2;
+
+	/** IGNORE_NULL SQL of different not-null columns, too many will not cached */
+	private static final int MAX_IGNORE_NULL_SQLS = 256;
+
+	private final TableModel model;
+	private boolean supported = true;
+
+	private ColumnModel[] insertColumns;
+	private int[] insertKinds;
+	private IdGenerator[] insertIdGenerators;
+	private ColumnModel identityColumn;
+	private String insertSql;
+
+	private ColumnModel[] updateColumns;
+	private String updateSql;
+
+	private ColumnModel[] pkeyColumns;
+	private String pkeyWhere;
+	private String deleteSql;
+	private String existSql;
+
+	private List<ColumnModel> loadColumns;
+	private String loadSql;
+
+	private final Map<BitSet, String> ignoreNullInsertSqls = new ConcurrentHashMap<BitSet, String>();
+	private final Map<BitSet, String> ignoreNullUpdateSqls = new ConcurrentHashMap<BitSet, String>();
+
+	/** The accessor indexes of last used bean class */
+	private volatile BeanIndexes beanIndexes;
+
+	/** Accessor indexes of plan columns for one bean class */
+	public static class BeanIndexes {
+		public final BeanAccessor accessor;
+		public final int[] insertIndexes;
+		public final int[] updateIndexes;
+		public final int[] pkeyIndexes;
+		public final int[] loadIndexes;
+
+		BeanIndexes(CrudPlan plan, BeanAccessor accessor) {
+			this.accessor = accessor;
+			this.insertIndexes = accessor.indexesOf(Arrays.asList(plan.insertColumns));
+			this.updateIndexes = accessor.indexesOf(Arrays.asList(plan.updateColumns));
+			this.pkeyIndexes = accessor.indexesOf(Arrays.asList(plan.pkeyColumns));
+			this.loadIndexes = accessor.indexesOf(plan.loadColumns);
+		}
+	}
+
+	public CrudPlan(TableModel model) {
+		this.model = model;
+		List<ColumnModel> columns = new ArrayList<ColumnModel>();
+		Set<String> names = new HashSet<String>();
+		for (ColumnModel col : model.getColumns()) {
+			if (col == null || col.getTransientable())
+				continue;
+			if (!names.add(col.getColumnName().toLowerCase()) || StrUtils.isEmpty(col.getEntityField())
+					|| col.getShardTable() != null || col.getShardDatabase() != null) {
+				supported = false;
+				return;
+			}
+			columns.add(col);
+		}
+		buildInsertPlan(columns);
+		if (!supported)
+			return;
+		buildPkeyAndUpdatePlan(columns);
+		if (!supported)
+			return;
+		loadColumns = columns;
+		StringBuilder sb = new StringBuilder("select ");
+		for (int i = 0; i < columns.size(); i++) {
+			if (i > 0)
+				sb.append(", ");
+			sb.append(columns.get(i).getColumnName());
+		}
+		loadSql = sb.append(" from ").append(model.getTableName()).append(pkeyWhere).toString();
+		deleteSql = "delete from " + model.getTableName() + pkeyWhere;
+		existSql = "select count(1) from " + model.getTableName() + pkeyWhere;
+	}
+
+	private void buildInsertPlan(List<ColumnModel> columns) {
+		List<ColumnModel> cols = new ArrayList<ColumnModel>();
+		List<Integer> kinds = new ArrayList<Integer>();
+		List<IdGenerator> gens = new ArrayList<IdGenerator>();
+		for (ColumnModel col : columns) {
+			if (!col.getInsertable())
+				continue;
+			if (col.getIdGenerationType() != null || !StrUtils.isEmpty(col.getIdGeneratorName())) {
+				IdGenerator idGen = col.getIdGenerator();
+				if (idGen == null) {
+					supported = false;
+					return;
+				}
+				if (GenerationType.IDENTITY.equals(idGen.getGenerationType())) {
+					if (identityColumn != null) {
+						supported = false;
+						return;
+					}
+					identityColumn = col;
+					continue;
+				}
+				kinds.add(GenerationType.SNOWFLAKE.equals(idGen.getGenerationType()) ? SNOWFLAKE_COLUMN
+						: ID_GENERATOR_COLUMN);
+				gens.add(idGen);
+			} else {
+				kinds.add(VALUE_COLUMN);
+				gens.add(null);
+			}
+			cols.add(col);
+		}
+		insertColumns = cols.toArray(new ColumnModel[cols.size()]);
+		insertIdGenerators = gens.toArray(new IdGenerator[gens.size()]);
+		insertKinds = new int[kinds.size()];
+		for (int i = 0; i < insertKinds.length; i++)
+			insertKinds[i] = kinds.get(i);
+		insertSql = buildInsertSql(null);
+	}
+
+	private void buildPkeyAndUpdatePlan(List<ColumnModel> columns) {
+		List<ColumnModel> pkeys = new ArrayList<ColumnModel>();
+		List<ColumnModel> updates = new ArrayList<ColumnModel>();
+		for (ColumnModel col : columns) {
+			if (col.getPkey())
+				pkeys.add(col);
+			else if (col.getUpdatable())
+				updates.add(col);
+		}
+		if (pkeys.isEmpty()) {
+			supported = false;
+			return;
+		}
+		pkeyColumns = pkeys.toArray(new ColumnModel[pkeys.size()]);
+		updateColumns = updates.toArray(new ColumnModel[updates.size()]);
+		StringBuilder sb = new StringBuilder(" where ");
+		for (int i = 0; i < pkeyColumns.length; i++) {
+			if (i > 0)
+				sb.append(" and ");
+			sb.append(pkeyColumns[i].getColumnName()).append("=?");
+		}
+		pkeyWhere = sb.toString();
+		updateSql = buildUpdateSql(null);
+	}
+
+	/** Build insert SQL, notNulls is null means insert all columns */
+	private String buildInsertSql(BitSet notNulls) {
+		StringBuilder sb = new StringBuilder("insert into ").append(model.getTableName()).append(" (");
+		int count = 0;
+		for (int i = 0; i < insertColumns.length; i++) {
+			if (notNulls != null && !notNulls.get(i))
+				continue;
+			if (count++ > 0)
+				sb.append(", ");
+			sb.append(insertColumns[i].getColumnName());
+		}
+		sb.append(")  values(");
+		for (int i = 0; i < count; i++) {
+			if (i > 0)
+				sb.append(",");
+			sb.append("?");
+		}
+		return sb.append(")").toString();
+	}
+
+	/** Build update SQL, notNulls is null means update all columns */
+	private String buildUpdateSql(BitSet notNulls) {
+		StringBuilder sb = new StringBuilder("update ").append(model.getTableName()).append(" set ");
+		int count = 0;
+		for (int i = 0; i < updateColumns.length; i++) {
+			if (notNulls != null && !notNulls.get(i))
+				continue;
+			if (count++ > 0)
+				sb.append(", ");
+			sb.append(updateColumns[i].getColumnName()).append("=? ");
+		}
+		return sb.append(pkeyWhere).toString();
+	}
+
+	/** Return insert SQL only include columns marked in notNulls */
+	public String getIgnoreNullInsertSql(BitSet notNulls) {
+		String sql = ignoreNullInsertSqls.get(notNulls);
+		if (sql == null) {
+			sql = buildInsertSql(notNulls);
+			if (ignoreNullInsertSqls.size() < MAX_IGNORE_NULL_SQLS)
+				ignoreNullInsertSqls.put(notNulls, sql);
+		}
+		return sql;
+	}
+
+	/** Return update SQL only include columns marked in notNulls */
+	public String getIgnoreNullUpdateSql(BitSet notNulls) {
+		String sql = ignoreNullUpdateSqls.get(notNulls);
+		if (sql == null) {
+			sql = buildUpdateSql(notNulls);
+			if (ignoreNullUpdateSqls.size() < MAX_IGNORE_NULL_SQLS)
+				ignoreNullUpdateSqls.put(notNulls, sql);
+		}
+		return sql;
+	}
+
+	/** Return accessor indexes of plan columns for given bean class */
+	public BeanIndexes getBeanIndexes(Class<?> beanClass) {
+		BeanIndexes indexes = beanIndexes;
+		if (indexes == null || indexes.accessor.getBeanClass() != beanClass) {
+			indexes = new BeanIndexes(this, BeanAccessor.of(beanClass));
+			beanIndexes = indexes;
+		}
+		return indexes;
+	}
+
+	protected void GetterSetters_________________________() {// NOSONAR
+	}
+
+	public TableModel getModel() {
+		return model;
+	}
+
+	public boolean isSupported() {
+		return supported;
+	}
+
+	public ColumnModel[] getInsertColumns() {
+		return insertColumns;
+	}
+
+	public int[] getInsertKinds() {
+		return insertKinds;
+	}
+
+	public IdGenerator[] getInsertIdGenerators() {
+		return insertIdGenerators;
+	}
+
+	public ColumnModel getIdentityColumn() {
+		return identityColumn;
+	}
+
+	public String getInsertSql() {
+		return insertSql;
+	}
+
+	public ColumnModel[] getUpdateColumns() {
+		return updateColumns;
+	}
+
+	public String getUpdateSql() {
+		return updateSql;
+	}
+
+	public ColumnModel[] getPkeyColumns() {
+		return pkeyColumns;
+	}
+
+	public String getDeleteSql() {
+		return deleteSql;
+	}
+
+	public String getExistSql() {
+		return existSql;
+	}
+
+	public List<ColumnModel> getLoadColumns() {
+		return loadColumns;
+	}
+
+	public String getLoadSql() {
+		return loadSql;
+	}
+
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jsqlbox;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.github.drinkjava2.jdbpro.TableTags;
+import com.github.drinkjava2.jdialects.model.TableModel;
+
+/**
+ * EntityCacheRegion is the second level cache of one entity class in a
+ * SqlBoxContext, used by eLoadById/eExistById methods if the entity class
+ * marked by &#064;EntityCache annotation or its TableModel set entityCache. It
+ * store column values (in order of CrudPlan's load columns) by id, each read
+ * create a new entity bean, so callers can not corrupt cached values.<br/>
+ *
+ * Cached entities are invalidated after alive seconds, or if the table be
+ * written by any SQL include eUpdate/eDelete/eDeleteById (see TableTags). If
+ * capacity exceeded, some entities are randomly evicted. <br/>
+ *
+ * Entity cache is not used if ConnectionManager of SqlBoxContext can not run
+ * callbacks after transaction end (e.g. JFinalTxConnectionManager), see
+ * AfterTransactionCallbackSupport.
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class EntityCacheRegion {
+	private final ConcurrentHashMap<Object, Entry> entries = new ConcurrentHashMap<Object, Entry>();
+	private final int capacity;
+	private final long aliveMillis;
+	private final String[] tags;
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+
+	private static class Entry {
+		final Object[] values;
+		final long expireAt;
+		final long[] tagVersions;
+
+		Entry(Object[] values, long expireAt, long[] tagVersions) {
+			this.values = values;
+			this.expireAt = expireAt;
+			this.tagVersions = tagVersions;
+		}
+	}
+
+	public EntityCacheRegion(TableModel model) {
+		Integer cap = model.getEntityCacheCapacity();
+		Integer alive = model.getEntityCacheAliveSeconds();
+		SqlBoxException.assureTrue(cap != null && cap > 0,
+				"Entity cache capacity of '" + model.getTableName() + "' should be greater than 0");
+		this.capacity = cap;
+		this.aliveMillis = (alive == null || alive <= 0) ? Long.MAX_VALUE / 2 : alive * 1000L;
+		this.tags = new String[] { TableTags.tagOf(model.getTableName()) };
+	}
+
+	/** Return a snapshot of table versions, should be taken before load entity */
+	public long[] tagVersions() {
+		return TableTags.versionsOf(tags);
+	}
+
+	/** Return cached column values of given id, return null if not found */
+	public Object[] get(Object id) {
+		Entry entry = entries.get(id);
+		if (entry != null && (entry.expireAt <= System.currentTimeMillis()
+				|| !TableTags.isCurrent(tags, entry.tagVersions))) {
+			entries.remove(id, entry);
+			entry = null;
+		}
+		if (entry == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		hitCount.incrementAndGet();
+		return entry.values;
+	}
+
+	/** Put column values of an id, tagVersions is the snapshot before load */
+	public void put(Object id, Object[] values, long[] tagVersions) {
+		if (!TableTags.isCurrent(tags, tagVersions))
+			return;
+		if (entries.size() >= capacity) {
+			Iterator<Object> it = entries.keySet().iterator();
+			while (entries.size() >= capacity && it.hasNext()) {
+				it.next();
+				it.remove();
+			}
+		}
+		entries.put(id, new Entry(values, System.currentTimeMillis() + aliveMillis, tagVersions));
+	}
+
+	/** Remove cached entity of given id */
+	public void remove(Object id) {
+		entries.remove(id);
+	}
+
+	/** Remove all cached entities */
+	public void clear() {
+		entries.clear();
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+}
@@ -0,0 +1,24 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jsqlbox;
+
+/**
+ * EntityVisitor is a callback used by eForEach methods, entities are mapped
+ * from an open ResultSet row by row and visited one by one, so a big result
+ * set can be read without load all rows into memory
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public interface EntityVisitor<T> {
+	public void visit(T entity);
+}
@@ -12,6 +12,7 @@
 package com.github.drinkjava2.jsqlbox;
 
 import java.sql.Connection;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -119,9 +120,11 @@ public abstract class JSQLBOX extends JDBPRO {// NOSONAR
 	
 	//Entity series methods from SqlBoxContext
 	public static <T> List<T> eFindAll(Class<T> entityClass, Object... items) {return gctx().eFindAll(entityClass, items);}
+	public static <T> int eForEach(Class<T> entityClass, EntityVisitor<T> visitor, Object... items) {return gctx().eForEach(entityClass, visitor, items);}
 	public static <T> List<T> eFindBySample(Object sampleBean, Object... items) {return gctx().eFindBySample(sampleBean, items);}
 	public static <T> List<T> eFindBySQL(Object... items) {return gctx().eFindBySQL(items);}   
 	public static <T> T eInsert(T entity, Object... items) {return gctx().eInsert(entity, items);} 
+	public static int eInsertBatch(Collection<?> entities, Object... items) {return gctx().eInsertBatch(entities, items);} 
 	public static <T> T eLoad(T entity, Object... items) {return gctx().eLoad(entity, items);} 
 	public static <T> T eLoadById(Class<T> entityClass, Object entityId, Object... items) {return gctx().eLoadById(entityClass, entityId, items);}
     public static <T> T eLoadByIdTry(Class<T> entityClass, Object entityId, Object... items) {return gctx().eLoadByIdTry(entityClass, entityId, items);}
@@ -142,6 +145,7 @@ public abstract class JSQLBOX extends JDBPRO {// NOSONAR
 	public static <T> List<T> eFindRelatedList(Object entityOrIterable, Object... sqlItems) {return  gctx().eFindRelatedList(entityOrIterable, sqlItems);}
 	public static <T> Set<T> eFindRelatedSet(Object entity, Object... sqlItems) {return  gctx().eFindRelatedSet(entity, sqlItems);}
 	public static <T> Map<Object, T> eFindRelatedMap(Object entity, Object... sqlItems) {return  gctx().eFindRelatedMap(entity, sqlItems);}
+	public static <T> Map<Object, List<T>> eFindRelatedBatch(Iterable<?> entities, Object... sqlItems) {return  gctx().eFindRelatedBatch(entities, sqlItems);}
 	
 	
 	// PINT series methods from jDbPro
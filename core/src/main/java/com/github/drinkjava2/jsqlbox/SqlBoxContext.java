@@ -13,9 +13,11 @@ package com.github.drinkjava2.jsqlbox;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sql.DataSource;
 
@@ -58,6 +60,7 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 			new ShardingRangeTool() };
 	protected static SnowflakeCreator globalNextSnowflakeCreator = null;
 	protected static Object[] globalNextSsModels = null;
+	protected static Boolean globalNextPaginBindParams = false;
 
 	public static final String NO_GLOBAL_SQLBOXCONTEXT_FOUND = "No default global SqlBoxContext found, need use method SqlBoxContext.setGlobalSqlBoxContext() to set a global default SqlBoxContext instance at the beginning of appication.";
 
@@ -68,8 +71,14 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 
 	protected ShardingTool[] shardingTools = globalNextShardingTools;
 	protected SnowflakeCreator snowflakeCreator = globalNextSnowflakeCreator;
+
+	/** If true, PaginHandler use "?" placeholders for pagination values */
+	protected Boolean paginBindParams = globalNextPaginBindParams;
 	protected TableModel[] tailModels; // TableModels loaded from DB, only used for tail mode
 
+	/** Second level entity caches, key is read-only TableModel of entity class */
+	protected final ConcurrentHashMap<TableModel, EntityCacheRegion> entityCacheRegions = new ConcurrentHashMap<TableModel, EntityCacheRegion>();
+
 	public SqlBoxContext() {
 		super();
 		this.dialect = globalNextDialect;
@@ -83,6 +92,29 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 	protected void miscMethods______________________________() {// NOSONAR
 	}
 
+	/**
+	 * Return the second level entity cache region of given TableModel, return
+	 * null if the model not set entityCache
+	 */
+	public EntityCacheRegion getEntityCacheRegion(TableModel model) {
+		if (model.getEntityCacheCapacity() == null)
+			return null;
+		EntityCacheRegion region = entityCacheRegions.get(model);
+		if (region == null) {
+			EntityCacheRegion newRegion = new EntityCacheRegion(model);
+			region = entityCacheRegions.putIfAbsent(model, newRegion);
+			if (region == null)
+				region = newRegion;
+		}
+		return region;
+	}
+
+	/** Clear all second level entity caches of current SqlBoxContext */
+	public void clearEntityCaches() {
+		for (EntityCacheRegion region : entityCacheRegions.values())
+			region.clear();
+	}
+
 	/** Reset all global SqlBox variants to default values */
 	public static void resetGlobalVariants() {
 		setGlobalNextAllowShowSql(false);
@@ -94,6 +126,7 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 		setGlobalNextTemplateEngine(BasicSqlTemplate.instance());
 		setGlobalNextDialect(null);
 		setGlobalNextShardingTools(new ShardingTool[] { new ShardingModTool(), new ShardingRangeTool() });
+		setGlobalNextPaginBindParams(false);
 		globalSqlBoxContext = null;
 	}
 
@@ -283,6 +316,14 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 		return entity;
 	}
 
+	/**
+	 * Insert entities by JDBC batch, identity ids are written back to entities,
+	 * return row affected
+	 */
+	public int eInsertBatch(Collection<?> entities, Object... optionItems) {
+		return SqlBoxContextUtils.entityInsertBatch(this, entities, optionItems);
+	}
+
 	/** Update entity in database, if not 1 row updated, throw SqlBoxException */
 	public <T> T eUpdate(Object entity, Object... optionItems) {
 		int result = SqlBoxContextUtils.entityUpdateTry(this, entity, optionItems);
@@ -374,6 +415,15 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 	public <T> List<T> eFindAll(Class<T> entityClass, Object... optionItems) {
 		return SqlBoxContextUtils.entityFindAll(this, entityClass, optionItems);
 	}
+
+	/**
+	 * Visit all entities of given entity class one by one without load them into
+	 * a List, usually used with a fetchSize() item to stream big table, return
+	 * rows count
+	 */
+	public <T> int eForEach(Class<T> entityClass, EntityVisitor<T> visitor, Object... optionItems) {
+		return SqlBoxContextUtils.entityForEach(this, entityClass, visitor, optionItems);
+	}
  
 	/** Find entity according SQL, if not found, return empty list */
 	public <T> List<T> eFindBySQL(Object... optionItems) {
@@ -398,6 +448,14 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 		return SqlBoxContextUtils.entityFindRelatedList(this, entityOrIterable, sqlItems);
 	}
 
+	/**
+	 * Find related entity lists of each entity in given Iterable by batch SQLs,
+	 * return a Map, key is source entity, value is its related entity list
+	 */
+	public <E> Map<Object, List<E>> eFindRelatedBatch(Iterable<?> entities, Object... sqlItems) {
+		return SqlBoxContextUtils.entityFindRelatedBatch(this, entities, sqlItems);
+	}
+
 	/** Find related entity set by given entity or Iterable */
 	public <E> Set<E> eFindRelatedSet(Object entity, Object... sqlItems) {
 		return SqlBoxContextUtils.entityFindRelatedSet(this, entity, sqlItems);
@@ -417,6 +475,12 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 		return dialect.pagin(pageNumber, pageSize, sql);
 	}
 
+	/** Shortcut call to dialect.paginBind method */
+	public String paginBind(int pageNumber, int pageSize, String sql, List<Object> bindValues) {
+		assertDialectNotNull();
+		return dialect.paginBind(pageNumber, pageSize, sql, bindValues);
+	}
+
 	/** Shortcut call to dialect.trans method */
 	public String trans(String sql) {
 		assertDialectNotNull();
@@ -501,6 +565,14 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 		globalNextSnowflakeCreator = snowflakeCreator;
 	}
 
+	public static Boolean getGlobalNextPaginBindParams() {
+		return globalNextPaginBindParams;
+	}
+
+	public static void setGlobalNextPaginBindParams(Boolean paginBindParams) {
+		globalNextPaginBindParams = paginBindParams;
+	}
+
 	// =========getter & setter =======
 
 	public Dialect getDialect() {
@@ -534,6 +606,15 @@ public class SqlBoxContext extends DbPro {// NOSONAR
 		SqlBoxContext.globalSqlBoxContext = globalSqlBoxContext;
 	}
 
+	public Boolean getPaginBindParams() {
+		return paginBindParams;
+	}
+
+	/** This method is not thread safe, suggest only use at program starting */
+	public void setPaginBindParams(Boolean paginBindParams) {// NOSONAR
+		this.paginBindParams = paginBindParams;
+	}
+
 	public TableModel[] getTailModels() {
 		return tailModels;
 	}
@@ -17,21 +17,38 @@ import static com.github.drinkjava2.jsqlbox.JSQLBOX.AUTO_SQL;
 import static com.github.drinkjava2.jsqlbox.JSQLBOX.shardDB;
 import static com.github.drinkjava2.jsqlbox.JSQLBOX.shardTB;
 
-import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+import org.apache.commons.dbutils.handlers.ColumnListHandler;
+
+import com.github.drinkjava2.jdbpro.ImprovedQueryRunner;
 import com.github.drinkjava2.jdbpro.LinkStyleArrayList;
 import com.github.drinkjava2.jdbpro.PreparedSQL;
 import com.github.drinkjava2.jdbpro.SingleTonHandlers;
+import com.github.drinkjava2.jdbpro.SqlHandler;
 import com.github.drinkjava2.jdbpro.SqlItem;
 import com.github.drinkjava2.jdbpro.SqlOption;
+import com.github.drinkjava2.jdialects.BeanAccessor;
 import com.github.drinkjava2.jdialects.ClassCacheUtils;
 import com.github.drinkjava2.jdialects.Dialect;
 import com.github.drinkjava2.jdialects.DialectException;
@@ -39,18 +56,23 @@ import com.github.drinkjava2.jdialects.StrUtils;
 import com.github.drinkjava2.jdialects.TableModelUtils;
 import com.github.drinkjava2.jdialects.Type;
 import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
+import com.github.drinkjava2.jdialects.id.BatchIdGenerator;
 import com.github.drinkjava2.jdialects.id.IdGenerator;
 import com.github.drinkjava2.jdialects.id.IdentityIdGenerator;
 import com.github.drinkjava2.jdialects.id.SnowflakeCreator;
 import com.github.drinkjava2.jdialects.model.ColumnModel;
 import com.github.drinkjava2.jdialects.model.FKeyModel;
 import com.github.drinkjava2.jdialects.model.TableModel;
+import com.github.drinkjava2.jsqlbox.CrudPlan.BeanIndexes;
 import com.github.drinkjava2.jsqlbox.entitynet.EntityIdUtils;
 import com.github.drinkjava2.jsqlbox.entitynet.EntityNet;
 import com.github.drinkjava2.jsqlbox.handler.EntityNetHandler;
 import com.github.drinkjava2.jsqlbox.sharding.ShardingTool;
 import com.github.drinkjava2.jsqlbox.sqlitem.EntityKeyItem;
+import com.github.drinkjava2.jsqlbox.sqlitem.EntityKeysItem;
 import com.github.drinkjava2.jsqlbox.sqlitem.SampleItem;
+import com.github.drinkjava2.jtransactions.AfterTransactionCallbackSupport;
+import com.github.drinkjava2.jtransactions.ConnectionManager;
 
 /**
  * SqlBoxContextUtils is utility class store static methods about SqlBoxContext
@@ -63,6 +85,13 @@ import com.github.drinkjava2.jsqlbox.sqlitem.SampleItem;
  * @since 1.7.0
  */
 public abstract class SqlBoxContextUtils {// NOSONAR
+	/** Cache CRUD plans of read-only TableModels, key is the model instance */
+	private static final Map<TableModel, CrudPlan> crudPlanCache = new ConcurrentHashMap<TableModel, CrudPlan>();
+
+	/** DataSources checked by supportBatchGeneratedKeys method */
+	private static final Map<DataSource, Boolean> batchKeysSupports = Collections
+			.synchronizedMap(new WeakHashMap<DataSource, Boolean>());
+
 	/**
 	 * Read database Meta info into SqlBox[]
 	 */
@@ -455,13 +484,11 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 			} else
 				throw new DialectException("Can not read tail value from instance which is not TailSupport");
 		} else {
-			Method readMethod = ClassCacheUtils.getClassFieldReadMethod(entityBean.getClass(), fieldName);
-			SqlBoxException.assureNotNull(readMethod, "No read method for '" + fieldName + "'");
-			try {
-				return readMethod.invoke(entityBean);
-			} catch (Exception e) {
-				throw new DialectException(e);
-			}
+			BeanAccessor accessor = BeanAccessor.of(entityBean.getClass());
+			int index = accessor.indexOf(fieldName);
+			if (index < 0)
+				throw new SqlBoxException("No read method for '" + fieldName + "'");
+			return accessor.readValue(entityBean, index);
 		}
 	}
 
@@ -476,13 +503,73 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 				((TailType) entityBean).tails().put(columnModel.getColumnName(), value);
 			} else
 				throw new DialectException("Can not write tail value for entity which is not TailSupport");
-		} else
-			try {
-				Method writeMethod = ClassCacheUtils.getClassFieldWriteMethod(entityBean.getClass(), fieldName);
-				writeMethod.invoke(entityBean, value);
-			} catch (Exception e) {
-				throw new DialectException("FieldName '" + fieldName + "' can not write with value '" + value + "'", e);
-			}
+		} else {
+			BeanAccessor accessor = BeanAccessor.of(entityBean.getClass());
+			int index = accessor.indexOf(fieldName);
+			if (index < 0)
+				throw new DialectException("FieldName '" + fieldName + "' can not write with value '" + value + "'");
+			accessor.writeValue(entityBean, index, value);
+		}
+	}
+
+	/**
+	 * Write value to entityBean by accessor index resolved by
+	 * {@link BeanAccessor#indexesOf(List)}, index -1 means transient or tail
+	 * column, will fall back to name based method
+	 */
+	public static void writeValueToBeanFieldOrTail(BeanAccessor accessor, int index, Object entityBean,
+			ColumnModel columnModel, Object value) {
+		if (index >= 0)
+			accessor.writeValue(entityBean, index, value);
+		else
+			writeValueToBeanFieldOrTail(entityBean, columnModel, value);
+	}
+
+	/**
+	 * Read value from entityBean by accessor index resolved by
+	 * {@link BeanAccessor#indexesOf(List)}, index -1 means transient or tail
+	 * column, will fall back to name based method
+	 */
+	public static Object readValueFromBeanFieldOrTail(BeanAccessor accessor, int index, Object entityBean,
+			ColumnModel columnModel) {
+		if (index >= 0)
+			return accessor.readValue(entityBean, index);
+		else
+			return readValueFromBeanFieldOrTail(entityBean, columnModel);
+	}
+
+	/**
+	 * Return the cached CrudPlan of a read-only TableModel, return null if model
+	 * is not read-only (may be changed later) or CrudPlan does not support it
+	 */
+	public static CrudPlan findCrudPlan(TableModel model) {
+		if (model == null || !Boolean.TRUE.equals(model.getReadOnly()))
+			return null;
+		CrudPlan plan = crudPlanCache.get(model);
+		if (plan == null) {
+			plan = new CrudPlan(model);
+			crudPlanCache.put(model, plan);
+		}
+		return plan.isSupported() ? plan : null;
+	}
+
+	private static boolean isIgnoreNull(Object... optionItems) {
+		for (Object item : optionItems)
+			if (SqlOption.IGNORE_NULL.equals(item))
+				return true;
+		return false;
+	}
+
+	/** Build SQL items of a planned CRUD method, optional SqlItems put at end */
+	private static Object[] plannedSqlItems(TableModel model, String sql, Object[] params, Object... optionItems) {
+		int start = model == null ? 0 : 1;
+		Object[] items = new Object[start + 2 + optionItems.length];
+		if (model != null)
+			items[0] = model;
+		items[start] = sql;
+		items[start + 1] = param(params);
+		System.arraycopy(optionItems, 0, items, start + 2, optionItems.length);
+		return items;
 	}
 
 	@SuppressWarnings("unused")
@@ -498,6 +585,9 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 		TableModel model = optionModel;
 		if (model == null)
 			model = SqlBoxContextUtils.findEntityOrClassTableModel(entityBean);
+		CrudPlan plan = findCrudPlan(model);
+		if (plan != null && (!(entityBean instanceof TailType) || findTailModel(ctx, model, optionItems) == null))
+			return plannedInsert(ctx, plan, optionModel == null, entityBean, optionItems);
 		Map<String, ColumnModel> cols = new HashMap<String, ColumnModel>();
 		for (ColumnModel col : model.getColumns())
 			cols.put(col.getColumnName().toLowerCase(), col);
@@ -517,7 +607,6 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 
 		LinkStyleArrayList<Object> jSQL = new LinkStyleArrayList<Object>();
 		ColumnModel identityCol = null;
-		Type identityType = null;
 		Boolean ignoreNull = null;
 		jSQL.append(" (");
 		boolean foundColumnToInsert = false;
@@ -534,7 +623,6 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 					if (identityCol != null)
 						throw new SqlBoxException(
 								"More than 1 identity field found for table '" + model.getTableName() + "'");
-					identityType = col.getColumnType();
 					identityCol = col;
 				} else if (GenerationType.SNOWFLAKE.equals(idGen.getGenerationType())) {// Snow
 					jSQL.append(col.getColumnName());
@@ -604,22 +692,269 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 		if (optionModel == null)// No optional model, force use entity's
 			jSQL.frontAdd(model);
 
-		int result = ctx.iUpdate(jSQL.toArray());
-		if (ctx.isBatchEnabled())
-			return 1; // in batch mode, direct return 1
-		if (identityCol != null) {// write identity id to Bean field
-			Object identityId = IdentityIdGenerator.INSTANCE.getNextID(ctx, ctx.getDialect(), identityType);
-			writeValueToBeanFieldOrTail(entityBean, identityCol, identityId);
+		return insertAndWriteIdentity(ctx, entityBean, identityCol, jSQL.toArray());
+	}
+
+	/**
+	 * Execute insert SQL items, if has identity column, write identity id to
+	 * entityBean. If dialect's JDBC driver support getGeneratedKeys, identity id
+	 * is read in same round trip by RETURN_GENERATED_KEYS, otherwise use
+	 * IdentityIdGenerator to query it by dialect's identity select SQL
+	 */
+	private static int insertAndWriteIdentity(SqlBoxContext ctx, Object entityBean, ColumnModel identityCol,
+			Object[] sqlItems) {
+		if (identityCol == null || ctx.isBatchEnabled()) {
+			int result = ctx.iUpdate(sqlItems);
+			return ctx.isBatchEnabled() ? 1 : result; // in batch mode, direct return 1
+		}
+		Object identityId = null;
+		int result;
+		if (supportGeneratedKeys(ctx.getDialect())) {
+			identityId = ctx.iInsert(new GeneratedKeyHandler(identityCol.getColumnName()), sqlItems);
+			result = 1; // no exception means 1 row inserted
+		} else
+			result = ctx.iUpdate(sqlItems);
+		if (identityId == null)
+			identityId = IdentityIdGenerator.INSTANCE.getNextID(ctx, ctx.getDialect(), identityCol.getColumnType());
+		writeValueToBeanFieldOrTail(entityBean, identityCol,
+				identityValueOfType(identityId, identityCol.getColumnType()));
+		return result;
+	}
+
+	/**
+	 * Return true if JDBC driver of dialect return the identity id by
+	 * getGeneratedKeys for single row insert, Oracle driver return ROWID and
+	 * some other drivers are not tested, they use the identity select SQL
+	 */
+	private static boolean supportGeneratedKeys(Dialect dialect) {
+		return dialect != null && Boolean.TRUE.equals(dialect.getDdlFeatures().getSupportsIdentityColumns())
+				&& (dialect.isMySqlFamily() || dialect.isPostgresFamily() || dialect.isH2Family()
+						|| dialect.isSQLServerFamily() || dialect.isDB2Family() || dialect.isDerbyFamily());
+	}
+
+	/**
+	 * Read generated key from ResultSet of getGeneratedKeys, some drivers (e.g.
+	 * Postgres) return all columns, so use column named as identity column if
+	 * found, otherwise use the first column, return null if no key returned
+	 */
+	private static class GeneratedKeyHandler implements ResultSetHandler<Object> {
+		private final String columnName;
+
+		GeneratedKeyHandler(String columnName) {
+			this.columnName = columnName;
+		}
+
+		@Override
+		public Object handle(ResultSet rs) throws SQLException {
+			if (!rs.next())
+				return null;
+			ResultSetMetaData meta = rs.getMetaData();
+			for (int i = 1; i <= meta.getColumnCount(); i++)
+				if (columnName.equalsIgnoreCase(meta.getColumnLabel(i)))
+					return rs.getObject(i);
+			return rs.getObject(1);
+		}
+	}
+
+	/**
+	 * Insert entities by JDBC batch, insert SQL only built once, each row goes
+	 * through SqlHandlers and is cached by batch mode of SqlBoxContext, rows are
+	 * sent in chunks of batchSize, ids of each chunk are created in one call for
+	 * Snowflake column and BatchIdGenerator (e.g. UUID and sequence generators),
+	 * identity ids are read by getGeneratedKeys and written back to each entity
+	 * bean, return row affected. <br/>
+	 * 
+	 * If entities can not use a cached CrudPlan (e.g. sharding, tail or
+	 * IGNORE_NULL option), or optionItems has other items except TableModel, or
+	 * table has identity column but JDBC driver can not return all generated keys
+	 * of a batch, entities will be inserted one by one by entityInsertTry method
+	 */
+	public static int entityInsertBatch(SqlBoxContext ctx, Collection<?> entities, Object... optionItems) {// NOSONAR
+		if (entities == null || entities.isEmpty())
+			return 0;
+		TableModel optionModel = SqlBoxContextUtils.findFirstModel(optionItems);
+		Object first = entities.iterator().next();
+		TableModel model = optionModel;
+		if (model == null)
+			model = SqlBoxContextUtils.findEntityOrClassTableModel(first);
+		CrudPlan plan = findCrudPlan(model);
+		boolean canBatch = plan != null;
+		for (Object item : optionItems)
+			if (!(item instanceof TableModel))
+				canBatch = false;
+		for (Object entity : entities)
+			if (!canBatch || entity == null || entity.getClass() != first.getClass())
+				canBatch = false;
+		if (canBatch && first instanceof TailType && findTailModel(ctx, model, optionItems) != null)
+			canBatch = false;
+		if (canBatch && plan.getIdentityColumn() != null && !supportBatchGeneratedKeys(ctx))
+			canBatch = false;
+		if (!canBatch) {
+			int result = 0;
+			for (Object entity : entities)
+				result += entityInsertTry(ctx, entity, optionItems);
+			return result;
+		}
+
+		ColumnModel identityCol = plan.getIdentityColumn();
+		int batchSize = ctx.getBatchSize() == null || ctx.getBatchSize() < 1 ? 1 : ctx.getBatchSize();
+		ResultSetHandler<List<Object>> keysHandler = identityCol == null ? null : new ColumnListHandler<Object>(1);
+		SqlHandler[] threadedHandlers = ImprovedQueryRunner.getThreadLocalSqlHandlers();
+		ImprovedQueryRunner.setThreadLocalSqlHandlers((SqlHandler[]) null); // used by all rows
+		boolean batchWasEnabled = ctx.isBatchEnabled();
+		if (batchWasEnabled)
+			ctx.nBatchFlush(); // keep SQL execute order
+		else
+			ctx.nBatchBegin();
+		List<Object> chunk = new ArrayList<Object>(Math.min(batchSize, entities.size()));
+		int result = 0;
+		try {
+			int i = 0;
+			List<?>[] chunkIds = null;
+			for (Object entity : entities) {
+				if (chunk.isEmpty())
+					chunkIds = batchInsertIds(ctx, plan, Math.min(batchSize, entities.size() - i));
+				PreparedSQL ps = new PreparedSQL(identityCol == null ? SqlOption.UPDATE : SqlOption.INSERT, null,
+						keysHandler, plan.getInsertSql(), plannedInsertParams(ctx, plan, entity, null, chunkIds,
+								chunk.size()));
+				chunk.add(entity);
+				ps.addGlobalAndThreadedHandlers(ctx);
+				if (threadedHandlers != null)
+					for (SqlHandler handler : threadedHandlers)
+						ps.addSqlHandler(handler);
+				ctx.runPreparedSQL(ps); // SqlHandlers run for each row, row is cached in batch
+				i++;
+				if (chunk.size() >= batchSize || i == entities.size()) {
+					Object flushed = ctx.nBatchFlush();
+					if (identityCol != null)
+						writeGeneratedKeys(model, identityCol, chunk, (List<?>) flushed);
+					result += chunk.size();
+					chunk.clear();
+				}
+			}
+		} finally {
+			ctx.getSqlBatchCache().get().clear(); // rows of a failed chunk should not be sent later
+			if (!batchWasEnabled)
+				ctx.nBatchEnd();
 		}
 		return result;
 	}
 
+	/**
+	 * Create ids of count rows for Snowflake and BatchIdGenerator columns of
+	 * CrudPlan's insert columns, return null if no such column, otherwise an
+	 * array of id lists, index is insert column index, null item means column
+	 * value not created here
+	 */
+	private static List<?>[] batchInsertIds(SqlBoxContext ctx, CrudPlan plan, int count) {
+		ColumnModel[] cols = plan.getInsertColumns();
+		int[] kinds = plan.getInsertKinds();
+		List<?>[] result = null;
+		for (int i = 0; i < cols.length; i++) {
+			List<?> ids = null;
+			if (kinds[i] == CrudPlan.SNOWFLAKE_COLUMN) {
+				long[] snowIds = getSnowflakeCreator(ctx).nextIds(count);
+				List<Object> list = new ArrayList<Object>(count);
+				for (long id : snowIds)
+					list.add(id);
+				ids = list;
+			} else if (kinds[i] == CrudPlan.ID_GENERATOR_COLUMN
+					&& plan.getInsertIdGenerators()[i] instanceof BatchIdGenerator)
+				ids = ((BatchIdGenerator) plan.getInsertIdGenerators()[i]).getNextIDs(ctx, ctx.getDialect(),
+						cols[i].getColumnType(), count);
+			if (ids != null) {
+				if (ids.size() != count)
+					throw new SqlBoxException("Expect " + count + " ids but " + ids.size() + " created for column '"
+							+ cols[i].getColumnName() + "'");
+				if (result == null)
+					result = new List<?>[cols.length];
+				result[i] = ids;
+			}
+		}
+		return result;
+	}
+
+	private static SnowflakeCreator getSnowflakeCreator(SqlBoxContext ctx) {
+		SnowflakeCreator snow = ctx.getSnowflakeCreator();
+		if (snow == null)
+			throw new SqlBoxException(
+					"Current SqlBoxContext no SnowflakeCreator found when try to create a Snowflake value");
+		return snow;
+	}
+
+	/** Write generated keys of a batch insert chunk back to entities */
+	private static void writeGeneratedKeys(TableModel model, ColumnModel identityCol, List<Object> chunk,
+			List<?> keys) {
+		if (keys == null || keys.size() != chunk.size())
+			throw new SqlBoxException("Expect " + chunk.size() + " generated keys but found "
+					+ (keys == null ? 0 : keys.size()) + " in batch insert of table '" + model.getTableName()
+					+ "', rows are inserted but ids not written back");
+		for (int j = 0; j < chunk.size(); j++)
+			writeValueToBeanFieldOrTail(chunk.get(j), identityCol,
+					identityValueOfType(keys.get(j), identityCol.getColumnType()));
+	}
+
+	/**
+	 * Return true if JDBC driver return generated keys of all rows in a batch
+	 * insert, it's checked before any row inserted: dialect should be MySQL or
+	 * Postgres family, and the real JDBC driver (read from DatabaseMetaData once
+	 * for each DataSource) should be MySQL, MariaDB or PostgreSQL driver which
+	 * support getGeneratedKeys. Other drivers (e.g. H2 1.3, SQL Server, Oracle)
+	 * only return the last key or none
+	 */
+	private static boolean supportBatchGeneratedKeys(SqlBoxContext ctx) {
+		Dialect dialect = ctx.getDialect();
+		DataSource ds = ctx.getDataSource();
+		if (dialect == null || ds == null || !(dialect.isMySqlFamily() || dialect.isPostgresFamily()))
+			return false;
+		Boolean supported = batchKeysSupports.get(ds);
+		if (supported != null)
+			return supported;
+		Connection conn = null;
+		try {
+			conn = ctx.prepareConnection();
+			DatabaseMetaData meta = conn.getMetaData();
+			String driver = meta.getDriverName() == null ? "" : meta.getDriverName().toLowerCase();
+			supported = meta.supportsGetGeneratedKeys() && (driver.contains("mysql") || driver.contains("mariadb")
+					|| driver.contains("postgresql"));
+		} catch (SQLException e) {
+			throw new SqlBoxException(e);
+		} finally {
+			if (conn != null)
+				try {
+					ctx.close(conn);
+				} catch (SQLException e) {// NOSONAR
+				}
+		}
+		batchKeysSupports.put(ds, supported);
+		return supported;
+	}
+
+	/** Convert generated key (Long or BigDecimal...) to identity column's type */
+	private static Object identityValueOfType(Object key, Type type) {
+		if (!(key instanceof Number))
+			return key;
+		Number num = (Number) key;
+		if (Type.INTEGER.equals(type))
+			return num.intValue();
+		if (Type.BIGINT.equals(type))
+			return num.longValue();
+		if (Type.SMALLINT.equals(type))
+			return num.shortValue();
+		if (Type.TINYINT.equals(type))
+			return num.byteValue();
+		return key;
+	}
+
 	/** Update entityBean according primary key, return row affected */
 	public static int entityUpdateTry(SqlBoxContext ctx, Object entityBean, Object... optionItems) {// NOSONAR
 		TableModel optionModel = SqlBoxContextUtils.findFirstModel(optionItems);
 		TableModel model = optionModel;
 		if (model == null)
 			model = SqlBoxContextUtils.findEntityOrClassTableModel(entityBean);
+		CrudPlan plan = findCrudPlan(model);
+		if (plan != null && (!(entityBean instanceof TailType) || findTailModel(ctx, model, optionItems) == null))
+			return plannedUpdate(ctx, plan, optionModel == null, entityBean, optionItems);
 		Map<String, ColumnModel> cols = new HashMap<String, ColumnModel>();
 		for (ColumnModel col : model.getColumns())
 			cols.put(col.getColumnName().toLowerCase(), col);
@@ -721,6 +1056,9 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 		TableModel model = optionModel;
 		if (model == null)
 			model = SqlBoxContextUtils.findEntityOrClassTableModel(entityClass);
+		CrudPlan plan = findCrudPlan(model);
+		if (plan != null && (!(id instanceof TailType) || findTailModel(ctx, model, optionItems) == null))
+			return plannedDeleteById(ctx, plan, optionModel == null, id, optionItems);
 		Map<String, ColumnModel> cols = new HashMap<String, ColumnModel>();
 		for (ColumnModel col : model.getColumns())
 			cols.put(col.getColumnName().toLowerCase(), col);
@@ -792,6 +1130,9 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 		TableModel model = optionModel;
 		if (model == null)
 			model = SqlBoxContextUtils.findEntityOrClassTableModel(entityBean);
+		CrudPlan plan = findCrudPlan(model);
+		if (plan != null && (!(entityBean instanceof TailType) || findTailModel(ctx, model, optionItems) == null))
+			return plannedLoad(ctx, plan, optionModel == null, entityBean, optionItems);
 		Map<String, ColumnModel> cols = new HashMap<String, ColumnModel>();
 		for (ColumnModel col : model.getColumns())
 			cols.put(col.getColumnName().toLowerCase(), col);
@@ -858,8 +1199,10 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 		if (valuesList == null || valuesList.isEmpty())
 			return 0;
 		Object[] values = valuesList.get(0);
+		BeanAccessor accessor = BeanAccessor.of(entityBean.getClass());
+		int[] indexes = accessor.indexesOf(effectColumns);
 		for (int i = 0; i < values.length; i++)
-			SqlBoxContextUtils.writeValueToBeanFieldOrTail(entityBean, effectColumns.get(i), values[i]);
+			writeValueToBeanFieldOrTail(accessor, indexes[i], entityBean, effectColumns.get(i), values[i]);
 		return valuesList.size();
 	}
 
@@ -872,6 +1215,11 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 		TableModel model = optionModel;
 		if (model == null)
 			model = SqlBoxContextUtils.findEntityOrClassTableModel(entityClass);
+		if (optionItems.length == 0 && isEntityCacheEnabled(ctx, model)) {
+			CrudPlan plan = findCrudPlan(model);
+			if (isEntityCacheable(plan, id))
+				return cachedLoadById(ctx, plan, entityClass, id);
+		}
 		Map<String, ColumnModel> cols = new HashMap<String, ColumnModel>();
 		for (ColumnModel col : model.getColumns())
 			cols.put(col.getColumnName().toLowerCase(), col);
@@ -905,6 +1253,12 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 		TableModel model = optionModel;
 		if (model == null)
 			model = SqlBoxContextUtils.findEntityOrClassTableModel(entityClass);
+		CrudPlan plan = findCrudPlan(model);
+		if (optionItems.length == 0 && isEntityCacheEnabled(ctx, model) && isEntityCacheable(plan, id)
+				&& ctx.getEntityCacheRegion(model).get(entityCacheKey(readPlannedIdValues(plan, id))) != null)
+			return true;
+		if (plan != null && (!(id instanceof TailType) || findTailModel(ctx, model, optionItems) == null))
+			return plannedExistById(ctx, plan, optionModel == null, id, optionItems);
 		Map<String, ColumnModel> cols = new HashMap<String, ColumnModel>();
 		for (ColumnModel col : model.getColumns())
 			cols.put(col.getColumnName().toLowerCase(), col);
@@ -963,13 +1317,7 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 			jSQL.frontAdd(model);
 
 		long result = ctx.iQueryForLongValue(jSQL.toObjectArray());
-		if (result == 1)
-			return true;
-		else if (result == 0)
-			return false;
-		else
-			throw new SqlBoxException(
-					"Fail to check entity exist because found " + result + " rows record in database");
+		return existCountToBoolean(result);
 	}
 
 	/** Count quantity of all entity, this method does not support sharding */
@@ -1007,6 +1355,60 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 	}
 
 	public static <T> List<T> entityFindAll(SqlBoxContext ctx, Class<T> entityClass, Object... optionItems) {// NOSONAR
+		List<ColumnModel> effectColumns = new ArrayList<ColumnModel>();
+		LinkStyleArrayList<Object> jSQL = buildFindAllSQL(ctx, entityClass, effectColumns, optionItems);
+		jSQL.append(SingleTonHandlers.arrayListHandler);
+		List<Object[]> valuesList = ctx.iQuery(jSQL.toObjectArray());
+
+		List<T> result = new ArrayList<T>();
+		if (valuesList == null || valuesList.isEmpty())
+			return result;
+		BeanAccessor accessor = BeanAccessor.of(entityClass);
+		int[] indexes = accessor.indexesOf(effectColumns);
+		for (Object[] values : valuesList) {
+			T bean = SqlBoxContextUtils.entityOrClassToBean(entityClass);
+			for (int i = 0; i < indexes.length; i++)
+				writeValueToBeanFieldOrTail(accessor, indexes[i], bean, effectColumns.get(i), values[i]);
+			result.add(bean);
+		}
+		return result;
+	}
+
+	/**
+	 * Query all entities and map them from the open ResultSet one by one, each
+	 * entity is given to visitor and then can be garbage collected, connection is
+	 * released by ConnectionManager after all rows be visited, return rows count.
+	 * Use a fetchSize() item to let JDBC driver stream rows.
+	 */
+	public static <T> int entityForEach(SqlBoxContext ctx, final Class<T> entityClass, final EntityVisitor<T> visitor,
+			Object... optionItems) {// NOSONAR
+		SqlBoxException.assureNotNull(visitor, "EntityVisitor can not be null");
+		final List<ColumnModel> effectColumns = new ArrayList<ColumnModel>();
+		LinkStyleArrayList<Object> jSQL = buildFindAllSQL(ctx, entityClass, effectColumns, optionItems);
+		jSQL.append(new ResultSetHandler<Integer>() {
+			@Override
+			public Integer handle(ResultSet rs) throws SQLException {
+				BeanAccessor accessor = BeanAccessor.of(entityClass);
+				int[] indexes = accessor.indexesOf(effectColumns);
+				int count = 0;
+				while (rs.next()) {
+					T bean = SqlBoxContextUtils.entityOrClassToBean(entityClass);
+					for (int i = 0; i < indexes.length; i++)
+						writeValueToBeanFieldOrTail(accessor, indexes[i], bean, effectColumns.get(i),
+								rs.getObject(i + 1));
+					visitor.visit(bean);
+					count++;
+				}
+				return count;
+			}
+		});
+		Integer count = ctx.iQuery(jSQL.toObjectArray());
+		return count == null ? 0 : count;
+	}
+
+	/** Build "select all columns" SQL items of entityFindAll and entityForEach */
+	private static LinkStyleArrayList<Object> buildFindAllSQL(SqlBoxContext ctx, Class<?> entityClass,
+			List<ColumnModel> effectColumns, Object... optionItems) {// NOSONAR
 		TableModel optionModel = SqlBoxContextUtils.findFirstModel(optionItems);
 		TableModel model = optionModel;
 		if (model == null)
@@ -1024,8 +1426,6 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 			tableName = tailModel.getTableName();
 
 		LinkStyleArrayList<Object> jSQL = new LinkStyleArrayList<Object>();
-		List<ColumnModel> effectColumns = new ArrayList<ColumnModel>();
-
 		for (ColumnModel col : cols.values()) {
 			if (col.getTransientable())
 				continue;
@@ -1042,20 +1442,7 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 				jSQL.append(item);
 		if (optionModel == null)
 			jSQL.frontAdd(model);
-
-		jSQL.append(SingleTonHandlers.arrayListHandler);
-		List<Object[]> valuesList = ctx.iQuery(jSQL.toObjectArray());
-
-		List<T> result = new ArrayList<T>();
-		if (valuesList == null || valuesList.isEmpty())
-			return result;
-		for (Object[] values : valuesList) {
-			T bean = SqlBoxContextUtils.entityOrClassToBean(entityClass);
-			for (int i = 0; i < effectColumns.size(); i++)
-				SqlBoxContextUtils.writeValueToBeanFieldOrTail(bean, effectColumns.get(i), values[i]);
-			result.add(bean);
-		}
-		return result;
+		return jSQL;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -1064,6 +1451,228 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 				new SampleItem(sampleBean).sql(" where ").notNullFields(), sqlItems);
 	}
 
+	@SuppressWarnings("unused")
+	private static void plannedCrudMethods___________________________________() {
+	}
+
+	/** Insert entityBean by cached CrudPlan, see entityInsertTry */
+	private static int plannedInsert(SqlBoxContext ctx, CrudPlan plan, boolean addModel, Object entityBean,
+			Object... optionItems) {
+		BitSet notNulls = isIgnoreNull(optionItems) ? new BitSet(plan.getInsertColumns().length) : null;
+		Object[] params = plannedInsertParams(ctx, plan, entityBean, notNulls);
+		String sql = notNulls == null ? plan.getInsertSql() : plan.getIgnoreNullInsertSql(notNulls);
+
+		return insertAndWriteIdentity(ctx, entityBean, plan.getIdentityColumn(),
+				plannedSqlItems(addModel ? plan.getModel() : null, sql, params, optionItems));
+	}
+
+	/**
+	 * Return insert parameters of entityBean, create ids by IdGenerators and write
+	 * them back to entityBean, if notNulls not null, null values are skipped and
+	 * columns of not-null values are marked in notNulls
+	 */
+	private static Object[] plannedInsertParams(SqlBoxContext ctx, CrudPlan plan, Object entityBean,
+			BitSet notNulls) {
+		return plannedInsertParams(ctx, plan, entityBean, notNulls, null, 0);
+	}
+
+	/**
+	 * Same as plannedInsertParams(ctx, plan, entityBean, notNulls), if batchIds
+	 * not null, ids already created by batchInsertIds method are used, row is
+	 * the index of entityBean in these ids
+	 */
+	private static Object[] plannedInsertParams(SqlBoxContext ctx, CrudPlan plan, Object entityBean,
+			BitSet notNulls, List<?>[] batchIds, int row) {
+		BeanIndexes bi = plan.getBeanIndexes(entityBean.getClass());
+		ColumnModel[] cols = plan.getInsertColumns();
+		int[] kinds = plan.getInsertKinds();
+		Object[] params = new Object[cols.length];
+		int count = 0;
+		for (int i = 0; i < cols.length; i++) {
+			Object value;
+			if (kinds[i] == CrudPlan.VALUE_COLUMN) {
+				value = readValueFromBeanFieldOrTail(bi.accessor, bi.insertIndexes[i], entityBean, cols[i]);
+				if (value == null && notNulls != null)
+					continue;
+			} else {
+				if (batchIds != null && batchIds[i] != null)
+					value = batchIds[i].get(row);
+				else if (kinds[i] == CrudPlan.SNOWFLAKE_COLUMN)
+					value = getSnowflakeCreator(ctx).nextId();
+				else
+					value = plan.getInsertIdGenerators()[i].getNextID(ctx, ctx.getDialect(), cols[i].getColumnType());
+				writeValueToBeanFieldOrTail(bi.accessor, bi.insertIndexes[i], entityBean, cols[i], value);
+			}
+			if (notNulls != null)
+				notNulls.set(i);
+			params[count++] = value;
+		}
+		if (count < params.length)
+			params = Arrays.copyOf(params, count);
+		return params;
+	}
+
+	/** Update entityBean by cached CrudPlan, see entityUpdateTry */
+	private static int plannedUpdate(SqlBoxContext ctx, CrudPlan plan, boolean addModel, Object entityBean,
+			Object... optionItems) {
+		BeanIndexes bi = plan.getBeanIndexes(entityBean.getClass());
+		ColumnModel[] cols = plan.getUpdateColumns();
+		ColumnModel[] pkeys = plan.getPkeyColumns();
+		BitSet notNulls = isIgnoreNull(optionItems) ? new BitSet(cols.length) : null;
+		Object[] params = new Object[cols.length + pkeys.length];
+		int count = 0;
+		for (int i = 0; i < cols.length; i++) {
+			Object value = readValueFromBeanFieldOrTail(bi.accessor, bi.updateIndexes[i], entityBean, cols[i]);
+			if (notNulls != null) {
+				if (value == null)
+					continue;
+				notNulls.set(i);
+			}
+			params[count++] = value;
+		}
+		for (int i = 0; i < pkeys.length; i++)
+			params[count++] = readValueFromBeanFieldOrTail(bi.accessor, bi.pkeyIndexes[i], entityBean, pkeys[i]);
+		String sql = notNulls == null ? plan.getUpdateSql() : plan.getIgnoreNullUpdateSql(notNulls);
+		if (count < params.length)
+			params = Arrays.copyOf(params, count);
+
+		int rowAffected = ctx.iUpdate(plannedSqlItems(addModel ? plan.getModel() : null, sql, params, optionItems));
+		if (ctx.isBatchEnabled())
+			return 1; // in batch mode, direct return 1
+		return rowAffected;
+	}
+
+	/** Read primary key values from entityId, entityId can be a bean, a map or a single value */
+	private static Object[] readPlannedIdValues(CrudPlan plan, Object id) {
+		ColumnModel[] pkeys = plan.getPkeyColumns();
+		Object[] params = new Object[pkeys.length];
+		for (int i = 0; i < pkeys.length; i++)
+			params[i] = EntityIdUtils.readFeidlValueFromEntityId(id, pkeys[i]);
+		return params;
+	}
+
+	/** Delete entity by Id and cached CrudPlan, see entityDeleteByIdTry */
+	private static int plannedDeleteById(SqlBoxContext ctx, CrudPlan plan, boolean addModel, Object id,
+			Object... optionItems) {
+		Object[] items = plannedSqlItems(addModel ? plan.getModel() : null, plan.getDeleteSql(),
+				readPlannedIdValues(plan, id), optionItems);
+		items = Arrays.copyOf(items, items.length + 1);
+		items[items.length - 1] = SingleTonHandlers.arrayHandler;
+		int rowAffected = ctx.iUpdate(items);
+		if (ctx.isBatchEnabled())
+			return 1; // in batch mode, direct return 1
+		return rowAffected;
+	}
+
+	/** Load entity by cached CrudPlan, see entityLoadTry */
+	private static int plannedLoad(SqlBoxContext ctx, CrudPlan plan, boolean addModel, Object entityBean,
+			Object... optionItems) {
+		BeanIndexes bi = plan.getBeanIndexes(entityBean.getClass());
+		ColumnModel[] pkeys = plan.getPkeyColumns();
+		Object[] params = new Object[pkeys.length];
+		for (int i = 0; i < pkeys.length; i++)
+			params[i] = readValueFromBeanFieldOrTail(bi.accessor, bi.pkeyIndexes[i], entityBean, pkeys[i]);
+		Object[] items = plannedSqlItems(addModel ? plan.getModel() : null, plan.getLoadSql(), params, optionItems);
+		items = Arrays.copyOf(items, items.length + 1);
+		items[items.length - 1] = SingleTonHandlers.arrayListHandler;
+		List<Object[]> valuesList = ctx.iQuery(items);
+
+		if (valuesList == null || valuesList.isEmpty())
+			return 0;
+		Object[] values = valuesList.get(0);
+		List<ColumnModel> cols = plan.getLoadColumns();
+		for (int i = 0; i < values.length; i++)
+			writeValueToBeanFieldOrTail(bi.accessor, bi.loadIndexes[i], entityBean, cols.get(i), values[i]);
+		return valuesList.size();
+	}
+
+	/**
+	 * Entity cache is enabled if model set entityCache and ConnectionManager (if
+	 * have) can run callbacks after transaction end, otherwise an entity changed
+	 * in a transaction may be cached by other threads before commit and be stale
+	 * until expired, so entity cache is not used
+	 */
+	private static boolean isEntityCacheEnabled(SqlBoxContext ctx, TableModel model) {
+		ConnectionManager cm = ctx.getConnectionManager();
+		return model.getEntityCacheCapacity() != null && (cm == null || (cm instanceof AfterTransactionCallbackSupport
+				&& ((AfterTransactionCallbackSupport) cm).supportsAfterTransactionCallback()));
+	}
+
+	/** Return true if entity of given id can use second level entity cache */
+	private static boolean isEntityCacheable(CrudPlan plan, Object id) {
+		if (plan == null || id == null || id instanceof TailType)
+			return false;
+		for (Object value : readPlannedIdValues(plan, id))
+			if (value == null)
+				return false;
+		return true;
+	}
+
+	private static Object entityCacheKey(Object[] idValues) {
+		return idValues.length == 1 ? idValues[0] : Arrays.asList(idValues);
+	}
+
+	/**
+	 * Load entity by id and second level entity cache, if not cached, load it from
+	 * database and put into cache, return a new entity bean or null if not exist
+	 */
+	private static <T> T cachedLoadById(SqlBoxContext ctx, CrudPlan plan, Class<T> entityClass, Object id) {
+		EntityCacheRegion region = ctx.getEntityCacheRegion(plan.getModel());
+		Object[] idValues = readPlannedIdValues(plan, id);
+		Object key = entityCacheKey(idValues);
+		Object[] values = region.get(key);
+		if (values == null) {
+			long[] tagVersions = region.tagVersions();
+			Object[] items = plannedSqlItems(plan.getModel(), plan.getLoadSql(), idValues);
+			items = Arrays.copyOf(items, items.length + 1);
+			items[items.length - 1] = SingleTonHandlers.arrayListHandler;
+			List<Object[]> valuesList = ctx.iQuery(items);
+			if (valuesList == null || valuesList.isEmpty())
+				return null;
+			values = valuesList.get(0);
+			if (!isInTransaction(ctx)) // uncommitted values can not be cached
+				region.put(key, values, tagVersions);
+		}
+		T bean = SqlBoxContextUtils.entityOrClassToBean(entityClass);
+		BeanIndexes bi = plan.getBeanIndexes(bean.getClass());
+		List<ColumnModel> cols = plan.getLoadColumns();
+		for (int i = 0; i < values.length; i++)
+			writeValueToBeanFieldOrTail(bi.accessor, bi.loadIndexes[i], bean, cols.get(i), copyMutableValue(values[i]));
+		return bean;
+	}
+
+	private static boolean isInTransaction(SqlBoxContext ctx) {
+		return ctx.getConnectionManager() != null && ctx.getDataSource() != null
+				&& ctx.getConnectionManager().isInTransaction(ctx.getDataSource());
+	}
+
+	/** Copy mutable values like Date and byte[], so cached values can not be changed */
+	private static Object copyMutableValue(Object value) {
+		if (value instanceof java.util.Date)
+			return ((java.util.Date) value).clone();
+		if (value instanceof byte[])
+			return ((byte[]) value).clone();
+		return value;
+	}
+
+	/** Check entity exist by Id and cached CrudPlan, see entityExistById */
+	private static boolean plannedExistById(SqlBoxContext ctx, CrudPlan plan, boolean addModel, Object id,
+			Object... optionItems) {
+		long result = ctx.iQueryForLongValue(plannedSqlItems(addModel ? plan.getModel() : null,
+				plan.getExistSql(), readPlannedIdValues(plan, id), optionItems));
+		return existCountToBoolean(result);
+	}
+
+	private static boolean existCountToBoolean(long result) {
+		if (result == 1)
+			return true;
+		else if (result == 0)
+			return false;
+		else
+			throw new SqlBoxException(
+					"Fail to check entity exist because found " + result + " rows record in database");
+	}
+
 	@SuppressWarnings("unused")
 	private static void ormQueryMethods___________________________________() {
 	}
@@ -1095,10 +1704,7 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 
 		SqlBoxException.assureNotNull(entity);
 		TableModel[] models = findAllModels(sqlItems);
-		Object[] modelsAlias = findModelAlias(sqlItems);
-		Object[] notModelAlias = findNotModelAlias(sqlItems);
-		EntityNet net = ctx.iQuery(SqlOption.QUERY, new EntityNetHandler(), modelsAlias, AUTO_SQL, " where ",
-				new EntityKeyItem(entity), notModelAlias);
+		EntityNet net = entityFindRelatedNet(ctx, entity, sqlItems);
 		return (List<E>) net.pickEntityList(models[models.length - 1].getEntityClass());
 	}
 
@@ -1110,10 +1716,7 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 			if (item instanceof EntityNet)
 				return ((EntityNet) item).findRelatedSet(ctx, entity, sqlItems);
 		TableModel[] models = findAllModels(sqlItems);
-		Object[] modelsAlias = findModelAlias(sqlItems);
-		Object[] notModelAlias = findNotModelAlias(sqlItems);
-		EntityNet net = ctx.iQuery(SqlOption.QUERY, new EntityNetHandler(), modelsAlias, AUTO_SQL, " where ",
-				new EntityKeyItem(entity), notModelAlias);
+		EntityNet net = entityFindRelatedNet(ctx, entity, sqlItems);
 		return (Set<E>) net.pickEntitySet(models[models.length - 1].getEntityClass());
 	}
 
@@ -1125,10 +1728,65 @@ public abstract class SqlBoxContextUtils {// NOSONAR
 			if (item instanceof EntityNet)
 				return ((EntityNet) item).findRelatedMap(ctx, entity, sqlItems);
 		TableModel[] models = findAllModels(sqlItems);
+		EntityNet net = entityFindRelatedNet(ctx, entity, sqlItems);
+		return (Map<Object, E>) net.pickEntityMap(models[models.length - 1].getEntityClass());
+	}
+
+	/**
+	 * Find related entities of each entity in given Iterable, return a Map, key is
+	 * the source entity, value is its related entity list. Primary keys of source
+	 * entities are sent in batches by "in (?,?...)" SQL, batch size is decided by
+	 * dialect's max parameters minus parameters already used by sqlItems, so only
+	 * need 1 SQL for each batch but not 1 SQL for each entity
+	 */
+	public static <E> Map<Object, List<E>> entityFindRelatedBatch(SqlBoxContext ctx, Iterable<?> entities,
+			Object... sqlItems) {
+		if (sqlItems.length == 0)
+			throw new SqlBoxException("Target entity class is required");
+		SqlBoxException.assureNotNull(entities);
+		Map<Object, List<E>> result = new LinkedHashMap<Object, List<E>>();
+		EntityNet net = entityFindRelatedNet(ctx, entities, sqlItems);
+		for (Object entity : entities)
+			if (!result.containsKey(entity))
+				result.put(entity, net.<E> findRelatedList(ctx, entity, sqlItems));
+		return result;
+	}
+
+	/**
+	 * Query related entities of given entity or Iterable into an EntityNet, for
+	 * Iterable, entities are queried in batches to avoid send N SQLs
+	 */
+	private static EntityNet entityFindRelatedNet(SqlBoxContext ctx, Object entityOrIterable, Object... sqlItems) {
 		Object[] modelsAlias = findModelAlias(sqlItems);
 		Object[] notModelAlias = findNotModelAlias(sqlItems);
-		EntityNet net = ctx.iQuery(SqlOption.QUERY, new EntityNetHandler(), modelsAlias, AUTO_SQL, " where ",
-				new EntityKeyItem(entity), notModelAlias);
-		return (Map<Object, E>) net.pickEntityMap(models[models.length - 1].getEntityClass());
+		if (!(entityOrIterable instanceof Iterable))
+			return ctx.iQuery(SqlOption.QUERY, new EntityNetHandler(), modelsAlias, AUTO_SQL, " where ",
+					new EntityKeyItem(entityOrIterable), notModelAlias);
+		TableModel[] models = findAllModels(sqlItems);
+		int pkeyCount = Math.max(1, models[0].getPKeyCount());
+		int maxParameters = ctx.getDialect() == null ? 1000 : ctx.getDialect().getMaxParameters();
+		// params already used by sqlItems, not use iPrepare, it consumes threaded handlers
+		if (notModelAlias.length > 0)
+			maxParameters -= ctx.dealSqlItems(null, true, notModelAlias).getParamSize();
+		int batchSize = Math.max(1, maxParameters / pkeyCount);
+		EntityNet net = new EntityNet();
+		List<Object> batch = new ArrayList<Object>();
+		for (Object entity : (Iterable<?>) entityOrIterable) {
+			SqlBoxException.assureNotNull(entity);
+			batch.add(entity);
+			if (batch.size() >= batchSize) {
+				queryRelatedBatch(ctx, net, batch, modelsAlias, notModelAlias);
+				batch = new ArrayList<Object>();
+			}
+		}
+		if (!batch.isEmpty())
+			queryRelatedBatch(ctx, net, batch, modelsAlias, notModelAlias);
+		return net;
+	}
+
+	private static void queryRelatedBatch(SqlBoxContext ctx, EntityNet net, List<Object> batch,
+			Object[] modelsAlias, Object[] notModelAlias) {
+		ctx.iQuery(SqlOption.QUERY, net, modelsAlias, AUTO_SQL, " where ", new EntityKeysItem(batch),
+				notModelAlias);
 	}
 }
\ No newline at end of file
@@ -13,6 +13,7 @@ package com.github.drinkjava2.jsqlbox.entitynet;
 
 import java.lang.annotation.Annotation;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -46,35 +47,61 @@ public abstract class EntityIdUtils {// NOSONAR
 	 * Build entityId from titles, oneRow, model, alias
 	 */
 	public static Object buildEntityIdFromOneRow(String[] titles, Object[] oneRow, TableModel model, String alias) {// NOSONAR
+		return buildEntityIdFromOneRow(oneRow, findPKeyTitlePositions(buildTitlePositions(titles), model, alias));
+	}
+
+	/**
+	 * Build a map of lower case title to its position, if a title appears more
+	 * than once, position of the last one is used
+	 */
+	public static Map<String, Integer> buildTitlePositions(String[] titles) {
+		Map<String, Integer> result = new HashMap<String, Integer>(titles.length * 2);
+		for (int i = 0; i < titles.length; i++)
+			result.put(titles[i].toLowerCase(), i);
+		return result;
+	}
+
+	/**
+	 * Find positions of "alias_pkeyColumn" titles, first item is position of
+	 * first PKey column, others are positions of PKey columns sorted by column
+	 * name (only for compound PKey), -1 means title not found
+	 */
+	public static int[] findPKeyTitlePositions(Map<String, Integer> titlePositions, TableModel model, String alias) {
 		int pkeyCount = model.getPKeyCount();
 		if (pkeyCount == 0)
 			throw new SqlBoxException(" No Pkey setting for '" + model.getTableName() + "'");
-		ColumnModel firstPkeyCol = model.getFirstPKeyColumn();
-		// DbUtils don't care UP/LOW case
+		if (pkeyCount == 1)
+			return new int[] { findTitlePosition(titlePositions, alias, model.getFirstPKeyColumn()) };
+		List<ColumnModel> l = model.getPKeyColsSortByColumnName();
+		int[] result = new int[l.size() + 1];
+		result[0] = findTitlePosition(titlePositions, alias, model.getFirstPKeyColumn());
+		for (int i = 0; i < l.size(); i++)
+			result[i + 1] = findTitlePosition(titlePositions, alias, l.get(i));
+		return result;
+	}
 
-		Object firstPKeyValue = null;
-		String keColName = new StringBuilder(alias).append("_").append(firstPkeyCol.getColumnName()).toString();
-		for (int i = 0; i < titles.length; i++) {
-			if (titles[i].equalsIgnoreCase(keColName))
-				firstPKeyValue = oneRow[i];
-		}
+	/** Return position of "alias_columnName" title, if not found return -1 */
+	public static int findTitlePosition(Map<String, Integer> titlePositions, String alias, ColumnModel col) {
+		Integer position = titlePositions
+				.get(new StringBuilder(alias).append("_").append(col.getColumnName()).toString().toLowerCase());
+		return position == null ? -1 : position;
+	}
+
+	/**
+	 * Build entityId from oneRow by PKey positions found by
+	 * findPKeyTitlePositions method, return null if any PKey value not found
+	 */
+	public static Object buildEntityIdFromOneRow(Object[] oneRow, int[] pkeyPositions) {
+		Object firstPKeyValue = pkeyPositions[0] < 0 ? null : oneRow[pkeyPositions[0]];
 		if (firstPKeyValue == null)
 			return null;//
-
-		if (pkeyCount == 1)
+		if (pkeyPositions.length == 1)
 			return firstPKeyValue;
-		List<ColumnModel> l = model.getPKeyColsSortByColumnName();
 		StringBuilder sb = new StringBuilder();
-		for (ColumnModel col : l) {
+		for (int i = 1; i < pkeyPositions.length; i++) {
 			if (sb.length() > 0)
 				sb.append(COMPOUND_ID_SEPARATOR);
-
-			Object value = null;
-			keColName = new StringBuilder(alias).append("_").append(col.getColumnName()).toString();
-			for (int i = 0; i < titles.length; i++) {
-				if (titles[i].equalsIgnoreCase(keColName))
-					value = oneRow[i];
-			}
+			Object value = pkeyPositions[i] < 0 ? null : oneRow[pkeyPositions[i]];
 			if (value == null)
 				return null;//
 			sb.append(value);
@@ -21,8 +21,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdialects.BeanAccessor;
 import com.github.drinkjava2.jdialects.ClassCacheUtils;
 import com.github.drinkjava2.jdialects.StrUtils;
 import com.github.drinkjava2.jdialects.model.ColumnModel;
@@ -55,9 +57,74 @@ public class EntityNet {
 	// private List<Map<String, Object>> rowData = new ArrayList<Map<String,
 	// Object>>();
 
+	/**
+	 * Title index of one alias, built once per titleArrayList, so row assembly
+	 * need not compare title Strings for each cell
+	 */
+	private static class AliasTitleIndex {
+		final String alias;
+		final String idKey;
+		final TableModel model;
+		final BeanAccessor accessor;
+		final int[] pkeyPositions;
+		/** Positions of titles mapped to columns, in title order */
+		final int[] positions;
+		final ColumnModel[] columns;
+		/** Accessor index of columns, -1 means entityField not set */
+		final int[] fieldIndexes;
+
+		AliasTitleIndex(Map<String, Integer> titlePositions, String[] titles, TableModel model, String alias) {
+			this.alias = alias;
+			this.idKey = "#" + alias;
+			this.model = model;
+			SqlBoxException.assureNotNull(model.getEntityClass());
+			this.accessor = BeanAccessor.of(model.getEntityClass());
+			this.pkeyPositions = EntityIdUtils.findPKeyTitlePositions(titlePositions, model, alias);
+			Map<String, List<ColumnModel>> colsByTitle = new HashMap<String, List<ColumnModel>>();
+			for (ColumnModel col : model.getColumns()) {
+				if (col.getTransientable())
+					continue;
+				String title = new StringBuilder(alias).append("_").append(col.getColumnName()).toString()
+						.toLowerCase();
+				List<ColumnModel> cols = colsByTitle.get(title);
+				if (cols == null) {
+					cols = new ArrayList<ColumnModel>();
+					colsByTitle.put(title, cols);
+				}
+				cols.add(col);
+			}
+			List<Integer> positionList = new ArrayList<Integer>();
+			List<ColumnModel> columnList = new ArrayList<ColumnModel>();
+			for (int i = 0; i < titles.length; i++) {
+				List<ColumnModel> cols = colsByTitle.get(titles[i].toLowerCase());
+				if (cols != null)
+					for (ColumnModel col : cols) {
+						positionList.add(i);
+						columnList.add(col);
+					}
+			}
+			positions = new int[positionList.size()];
+			columns = columnList.toArray(new ColumnModel[columnList.size()]);
+			fieldIndexes = new int[positions.length];
+			for (int i = 0; i < positions.length; i++) {
+				positions[i] = positionList.get(i);
+				fieldIndexes[i] = StrUtils.isEmpty(columns[i].getEntityField()) ? -1
+						: accessor.indexOf(columns[i].getEntityField());
+			}
+		}
+	}
+
 	/** The body of entity net, Map<alias, Map<entityId, entity>> */
 	private Map<Class<?>, LinkedHashMap<Object, Object>> body = new HashMap<Class<?>, LinkedHashMap<Object, Object>>();
 
+	/**
+	 * Relation indexes used by findRelatedXxx methods, Map<"entityClass|fields",
+	 * Map<fieldValues, entities>>, lazily built, cleared when body changed. It's
+	 * a ConcurrentHashMap so threads can call findRelatedXxx methods on a same
+	 * EntityNet at same time
+	 */
+	private final Map<String, Map<Object, List<Object>>> relationIndexes = new ConcurrentHashMap<String, Map<Object, List<Object>>>();
+
 	protected void core__________________________() {// NOSONAR
 	}
 
@@ -118,11 +185,19 @@ public class EntityNet {
 	 * List<Object[]> structure, first row is titles, not data
 	 */
 	public EntityNet joinTitleArrayList(List<Object[]> titleArrayList) {
+		if (titleArrayList.size() < 2)
+			return this;
+		relationIndexes.clear();
 		String[] titles = (String[]) titleArrayList.get(0);
+		Map<String, Integer> titlePositions = EntityIdUtils.buildTitlePositions(titles);
+		AliasTitleIndex[] indexes = new AliasTitleIndex[models.size()];
 		int i = 0;
+		for (Entry<String, TableModel> config : this.models.entrySet())
+			indexes[i++] = new AliasTitleIndex(titlePositions, titles, config.getValue(), config.getKey());
+		i = 0;
 		for (Object[] oneRow : titleArrayList)
 			if (i++ != 0)
-				translateAndGive(titles, oneRow);
+				translateAndGive(indexes, oneRow);
 		return this;
 	}
 
@@ -186,49 +261,44 @@ public class EntityNet {
 	}
 
 	/** Translate one row of map list to entity objects, put into entity net body */
-	private void translateAndGive(String[] titles, Object[] oneRow) {
+	private void translateAndGive(AliasTitleIndex[] indexes, Object[] oneRow) {
 		Map<String, Object> oneRowEntities = new HashMap<String, Object>();
-		for (Entry<String, TableModel> config : this.models.entrySet()) {
-			TableModel model = config.getValue();
-			String alias = config.getKey();
-
-			// find and build entityID 
-			Object entityId = EntityIdUtils.buildEntityIdFromOneRow(titles, oneRow, model, alias);
+		for (AliasTitleIndex index : indexes) {
+			// find and build entityID
+			Object entityId = EntityIdUtils.buildEntityIdFromOneRow(oneRow, index.pkeyPositions);
 			if (entityId == null)
-				continue;// not found entity ID columns 
-			SqlBoxException.assureNotNull(model.getEntityClass());
-			Object entity = getOneEntity(model.getEntityClass(), entityId); 
+				continue;// not found entity ID columns
+			Class<?> entityClass = index.model.getEntityClass();
+			Object entity = getOneEntity(entityClass, entityId);
 			// create new Entity
 			if (entity == null) {
-				entity = createEntity(titles, oneRow, model, alias);
-				this.putOneEntity(model.getEntityClass(), entityId, entity);
+				entity = ClassCacheUtils.createNewEntity(entityClass);
+				updateEntity(index, entity, oneRow);
+				this.putOneEntity(entityClass, entityId, entity);
 			} else {
-			 updateEntity(titles, entity, oneRow, model, alias);
-			} 
-			oneRowEntities.put(alias, entity);
-			oneRowEntities.put("#" + alias, entity);
+				updateEntity(index, entity, oneRow);
+			}
+			oneRowEntities.put(index.alias, entity);
+			oneRowEntities.put(index.idKey, entity);
 		}
 		doGive(oneRowEntities);
 	}
 
-	private static Object createEntity(String[] titles, Object[] oneRow, TableModel model, String alias) {
-		Object entity;
-		entity = ClassCacheUtils.createNewEntity(model.getEntityClass());
-		return updateEntity(titles, entity, oneRow, model, alias);
-	}
-
-	private static Object updateEntity(String[] titles, Object entity, Object[] oneRow, TableModel model,
-			String alias) {
-		for (int i = 0; i < titles.length; i++) {
-			for (ColumnModel col : model.getColumns()) {
-				if (col.getTransientable())
-					continue;
-				if (oneRow[i]!=null && titles[i].equalsIgnoreCase(alias + "_" + col.getColumnName())) {
-					SqlBoxException.assureNotEmpty(col.getEntityField(),
-							"EntityField not set for column '" + col.getColumnName() + "'");
-					ClassCacheUtils.writeValueToBeanField(entity, col.getEntityField(), oneRow[i]);
-				}
-			}
+	private static Object updateEntity(AliasTitleIndex index, Object entity, Object[] oneRow) {
+		BeanAccessor accessor = index.accessor;
+		if (accessor.getBeanClass() != entity.getClass())
+			accessor = BeanAccessor.of(entity.getClass());
+		for (int i = 0; i < index.positions.length; i++) {
+			Object value = oneRow[index.positions[i]];
+			if (value == null)
+				continue;
+			ColumnModel col = index.columns[i];
+			SqlBoxException.assureNotEmpty(col.getEntityField(),
+					"EntityField not set for column '" + col.getColumnName() + "'");
+			if (accessor == index.accessor && index.fieldIndexes[i] >= 0)
+				accessor.writeValue(entity, index.fieldIndexes[i], value);
+			else
+				accessor.writeValue(entity, col.getEntityField(), value);
 		}
 		return entity;
 	}
@@ -289,6 +359,8 @@ public class EntityNet {
 			body.put(claz, entityMap);
 		}
 		entityMap.put(entityId, entity);
+		if (!relationIndexes.isEmpty())
+			relationIndexes.clear();
 	}
 
 	public Object getOneEntity(Class<?> claz, Object entityId) {
@@ -347,60 +419,120 @@ public class EntityNet {
 		return resultMap;
 	}
 
-	private static boolean hasRelationShip(Object e1, Object e2, TableModel m1, TableModel m2) {
-		List<FKeyModel> fkeys = m1.getFkeyConstraints();
-		for (FKeyModel fkey : fkeys) {
+	/**
+	 * Find the relationship between m1 and m2 by foreign key setting, return
+	 * String[][]{m1's fields, m2's fields}, entity of m1 and entity of m2 are
+	 * related if values of these fields are equal
+	 */
+	private static String[][] findRelationFields(TableModel m1, TableModel m2) {
+		for (FKeyModel fkey : m1.getFkeyConstraints()) {
 			String refTable = fkey.getRefTableAndColumns()[0];
-			if (refTable.equalsIgnoreCase(m2.getTableName())) {// m2 is parent
-				return realDoRelationCheck(e1, e2, m1, m2, fkey);
-			}
+			if (refTable.equalsIgnoreCase(m2.getTableName())) // m2 is parent
+				return buildRelationFields(m1, m2, fkey);
 		}
-		fkeys = m2.getFkeyConstraints();
-		for (FKeyModel fkey : fkeys) {
+		for (FKeyModel fkey : m2.getFkeyConstraints()) {
 			String refTable = fkey.getRefTableAndColumns()[0];
 			if (refTable.equalsIgnoreCase(m1.getTableName())) {// m1 is parent
-				return realDoRelationCheck(e2, e1, m2, m1, fkey);
+				String[][] fields = buildRelationFields(m2, m1, fkey);
+				return new String[][] { fields[1], fields[0] };
 			}
 		}
 		throw new SqlBoxException("Not found relationship(foreign key) setting between '" + m1.getEntityClass()
 				+ "' and '" + m2.getEntityClass() + "'");
 	}
 
+	/** Return String[][]{child's fkey fields, parent's referenced fields} */
+	private static String[][] buildRelationFields(TableModel child, TableModel parent, FKeyModel fkey) {
+		List<String> cols = fkey.getColumnNames();
+		String[] childFields = new String[cols.size()];
+		String[] parentFields = new String[cols.size()];
+		for (int i = 0; i < cols.size(); i++) {
+			childFields[i] = child.getColumnByColName(cols.get(i)).getEntityField();
+			parentFields[i] = parent.getColumnByColName(fkey.getRefTableAndColumns()[i + 1]).getEntityField();
+		}
+		return new String[][] { childFields, parentFields };
+	}
+
 	/**
-	 * Check if 2 entities have relationShip, e1's fkey value should equal e2's ID
+	 * Read values of fields as a hash key, single field return the value, compound
+	 * fields return a List, if any value is null return null
 	 */
-	private static boolean realDoRelationCheck(Object e1, Object e2, TableModel m1, TableModel m2, FKeyModel fkey) {
-		int i = 0;
-		for (String col : fkey.getColumnNames()) {
-			String refCol = fkey.getRefTableAndColumns()[i + 1];
-			ColumnModel c1 = m1.getColumnByColName(col);
-			ColumnModel c2 = m2.getColumnByColName(refCol);
-			Object value1 = ClassCacheUtils.readValueFromBeanField(e1, c1.getEntityField());
-			Object value2 = ClassCacheUtils.readValueFromBeanField(e2, c2.getEntityField());
-			if (value1 == null || value2 == null || !value1.equals(value2))
-				return false;
-			i++;
+	private static Object readRelationKey(Object entity, String[] fields) {
+		if (fields.length == 1)
+			return ClassCacheUtils.readValueFromBeanField(entity, fields[0]);
+		List<Object> key = new ArrayList<Object>(fields.length);
+		for (String field : fields) {
+			Object value = ClassCacheUtils.readValueFromBeanField(entity, field);
+			if (value == null)
+				return null;
+			key.add(value);
 		}
-		return true;
+		return key;
 	}
 
-	public Set<Object> doFindRelatedSet(int index, Object entity, TableModel[] tbModels) {
-		Set<Object> result = new HashSet<Object>();
-		TableModel m1 = tbModels[index]; // User or UserRole or RolePrivilege...
-		TableModel m2 = tbModels[index + 1]; // Privilege
-		if ((index + 2) >= tbModels.length) {
-			for (Entry<Object, Object> e : body.get(m2.getEntityClass()).entrySet()) {
-				if (hasRelationShip(entity, e.getValue(), m1, m2))
-					result.add(e.getValue());
+	/** Return the key of relation index, format is "entityClass|field1|field2..." */
+	private static String relationIndexKey(Class<?> entityClass, String[] fields) {
+		StringBuilder sb = new StringBuilder(entityClass.getName());
+		for (String field : fields)
+			sb.append("|").append(field);
+		return sb.toString();
+	}
+
+	/**
+	 * Return the index of entities of given class grouped by values of given
+	 * fields, the index is built at first use and cleared when body changed
+	 */
+	private Map<Object, List<Object>> getRelationIndex(String indexKey, Class<?> entityClass, String[] fields) {
+		Map<Object, List<Object>> index = relationIndexes.get(indexKey);
+		if (index != null)
+			return index;
+		index = new HashMap<Object, List<Object>>();
+		Map<Object, Object> entities = body.get(entityClass);
+		if (entities != null)
+			for (Object entity : entities.values()) {
+				Object key = readRelationKey(entity, fields);
+				if (key == null)
+					continue;
+				List<Object> list = index.get(key);
+				if (list == null) {
+					list = new ArrayList<Object>(1);
+					index.put(key, list);
+				}
+				list.add(entity);
 			}
-		} else {
-			Set<Object> middleEntitis = doFindRelatedSet(0, entity, new TableModel[] { m1, m2 });
-			for (Object mid : middleEntitis) {
-				Set<Object> targets = doFindRelatedSet(index + 1, mid, tbModels);// NOSONAR
-				result.addAll(targets);
+		relationIndexes.put(indexKey, index); // built completely before publish
+		return index;
+	}
+
+	/**
+	 * Search entities related to given entity, tbModels[index] is entity's model,
+	 * the last one is target model, models between them are middle hops. Relation
+	 * fields and relation index of each hop are found once, not per entity
+	 */
+	public Set<Object> doFindRelatedSet(int index, Object entity, TableModel[] tbModels) {
+		Set<Object> current = new HashSet<Object>();
+		current.add(entity);
+		for (int i = index; i < tbModels.length - 1 && !current.isEmpty(); i++) {
+			TableModel m1 = tbModels[i]; // User or UserRole or RolePrivilege...
+			TableModel m2 = tbModels[i + 1]; // Privilege
+			Set<Object> next = new HashSet<Object>();
+			Map<Object, Object> targets = body.get(m2.getEntityClass());
+			if (targets == null || targets.isEmpty())
+				return next;
+			String[][] fields = findRelationFields(m1, m2);
+			Map<Object, List<Object>> relationIndex = getRelationIndex(
+					relationIndexKey(m2.getEntityClass(), fields[1]), m2.getEntityClass(), fields[1]);
+			for (Object ent : current) {
+				Object key = readRelationKey(ent, fields[0]);
+				if (key == null)
+					continue;
+				List<Object> related = relationIndex.get(key);
+				if (related != null)
+					next.addAll(related);
 			}
+			current = next;
 		}
-		return result;
+		return current;
 	}
 
 	protected void getterSetter__________________________() {// NOSONAR
@@ -447,6 +579,7 @@ public class EntityNet {
 
 	public void setBody(Map<Class<?>, LinkedHashMap<Object, Object>> body) {
 		this.body = body;
+		relationIndexes.clear();
 	}
 
 }
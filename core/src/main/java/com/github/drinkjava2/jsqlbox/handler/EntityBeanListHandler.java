@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jsqlbox.handler;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.dbutils.ResultSetHandler;
+
+import com.github.drinkjava2.jdialects.BeanAccessor;
+import com.github.drinkjava2.jdialects.ClassCacheUtils;
+import com.github.drinkjava2.jdialects.model.ColumnModel;
+import com.github.drinkjava2.jdialects.model.TableModel;
+import com.github.drinkjava2.jsqlbox.SqlBoxContextUtils;
+import com.github.drinkjava2.jsqlbox.SqlBoxException;
+import com.github.drinkjava2.jsqlbox.TailType;
+
+/**
+ * EntityBeanListHandler transfer ResultSet to a List of entity beans. Column
+ * labels of ResultSetMetaData are resolved to ColumnModels and bean setters
+ * only once per ResultSet, then each row is written into a new bean by column
+ * ordinal, no Map created for rows. <br/>
+ * 
+ * Mapping rule is same as SqlBoxContextUtils.mapToEntityBean method: column
+ * not found in model be put into tails if entity is TailType, if a label
+ * appears more than once, the last one wins.
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class EntityBeanListHandler implements ResultSetHandler<List<Object>> {
+	private final TableModel model;
+
+	public EntityBeanListHandler(TableModel model) {
+		SqlBoxException.assureNotNull(model, "TableModel can not be null");
+		SqlBoxException.assureNotNull(model.getEntityClass(), "Can not find entityClass setting in model.");
+		this.model = model;
+	}
+
+	@Override
+	public List<Object> handle(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int colCount = rsmd.getColumnCount();
+		String[] labels = new String[colCount];
+		ColumnModel[] columns = new ColumnModel[colCount];
+		boolean[] skips = new boolean[colCount];
+		Set<String> found = new HashSet<String>();
+		for (int i = colCount - 1; i >= 0; i--) {
+			String label = rsmd.getColumnLabel(i + 1);
+			if (null == label || 0 == label.length())
+				label = rsmd.getColumnName(i + 1);
+			labels[i] = label;
+			skips[i] = !found.add(label.toLowerCase());// duplicated, the last one wins
+			columns[i] = model.getColumnByColName(label);
+		}
+		BeanAccessor accessor = BeanAccessor.of(model.getEntityClass());
+		int[] indexes = new int[colCount];
+		for (int i = 0; i < colCount; i++)
+			indexes[i] = columns[i] == null || columns[i].getTransientable() || columns[i].getEntityField() == null
+					? -1
+					: accessor.indexOf(columns[i].getEntityField());
+
+		List<Object> entityList = new ArrayList<Object>();
+		while (rs.next()) {
+			Object bean = ClassCacheUtils.createNewEntity(model.getEntityClass());
+			for (int i = 0; i < colCount; i++) {
+				if (skips[i])
+					continue;
+				Object value = rs.getObject(i + 1);
+				if (columns[i] == null) {
+					if (bean instanceof TailType)
+						((TailType) bean).tails().put(labels[i], value);
+				} else
+					SqlBoxContextUtils.writeValueToBeanFieldOrTail(accessor, indexes[i], bean, columns[i], value);
+			}
+			entityList.add(bean);
+		}
+		return entityList;
+	}
+
+}
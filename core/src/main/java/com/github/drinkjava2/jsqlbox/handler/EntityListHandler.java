@@ -42,6 +42,11 @@ public class EntityListHandler extends DefaultOrderSqlHandler {
 			throw new SqlBoxException("TableModel setting should only have 1 for EntityListHandler");
 		TableModel model = (TableModel) tableModels[0];
 
+		if (ps.getSqlHandlers() == null || ps.getSqlHandlers().isEmpty()) {
+			// No other SqlHandler need see the Map rows, map entities by column ordinal
+			ps.setResultSetHandler(new EntityBeanListHandler(model));
+			return runner.runPreparedSQL(ps);
+		}
 		ps.setResultSetHandler(SingleTonHandlers.mapListHandler);
 		List<Map<String, Object>> maps = (List<Map<String, Object>>) runner.runPreparedSQL(ps);
 		List<Object> entityList = new ArrayList<Object>();
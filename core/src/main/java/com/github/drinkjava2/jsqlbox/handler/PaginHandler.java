@@ -11,13 +11,18 @@
  */
 package com.github.drinkjava2.jsqlbox.handler;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import com.github.drinkjava2.jdbpro.DefaultOrderSqlHandler;
 import com.github.drinkjava2.jdbpro.ImprovedQueryRunner;
 import com.github.drinkjava2.jdbpro.PreparedSQL;
 import com.github.drinkjava2.jsqlbox.SqlBoxContext;
 
 /**
- * PaginHandler is a SqlHandler used to translate SQL to paginated SQL
+ * PaginHandler is a SqlHandler used to translate SQL to paginated SQL, if
+ * SqlBoxContext's paginBindParams is true, pagination values are bound as
+ * parameters, see Dialect.paginBind
  * 
  * @author Yong Zhu
  * @since 1.0.0
@@ -33,7 +38,14 @@ public class PaginHandler extends DefaultOrderSqlHandler {
 
 	@Override
 	public Object handle(ImprovedQueryRunner runner, PreparedSQL ps) {
-		ps.setSql(((SqlBoxContext) runner).getDialect().pagin(pageNumber, pageSize, ps.getSql()));
+		SqlBoxContext ctx = (SqlBoxContext) runner;
+		if (Boolean.TRUE.equals(ctx.getPaginBindParams())) {
+			List<Object> bindValues = new ArrayList<Object>(2);
+			ps.setSql(ctx.getDialect().paginBind(pageNumber, pageSize, ps.getSql(), bindValues));
+			for (Object value : bindValues)
+				ps.addParam(value);
+		} else
+			ps.setSql(ctx.getDialect().pagin(pageNumber, pageSize, ps.getSql()));
 		return runner.runPreparedSQL(ps);
 	}
 
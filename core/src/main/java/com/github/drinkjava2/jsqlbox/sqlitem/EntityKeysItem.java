@@ -0,0 +1,92 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jsqlbox.sqlitem;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.github.drinkjava2.jdbpro.CustomizedSqlItem;
+import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdialects.model.ColumnModel;
+import com.github.drinkjava2.jdialects.model.TableModel;
+import com.github.drinkjava2.jsqlbox.SqlBoxContextUtils;
+import com.github.drinkjava2.jsqlbox.SqlBoxException;
+
+/**
+ * EntityKeysItem is the batch version of EntityKeyItem, for single primary key
+ * it build a " alias.id in (?,?,?...) " SQL piece, for compound primary key it
+ * build a " ((alias.id1=? and alias.id2=?) or (...)) " SQL piece, alias is
+ * based on current PreparedSQL's setting, all entities should be same class
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class EntityKeysItem implements CustomizedSqlItem {
+	private List<?> entities;
+
+	public EntityKeysItem(List<?> entities) {
+		SqlBoxException.assureTrue(entities != null && !entities.isEmpty());
+		this.entities = entities;
+	}
+
+	@Override
+	public void doPrepare(PreparedSQL ps) {
+		Class<?> entityClass = entities.get(0).getClass();
+		TableModel model = null;
+		String alias = null;
+		for (int i = 0; i < ps.getModels().length; i++) {
+			TableModel psmodel = (TableModel) ps.getModels()[i];
+			if (entityClass.equals(psmodel.getEntityClass())) {
+				model = psmodel;
+				alias = ps.getAliases()[i];
+			}
+		}
+		SqlBoxException.assureNotNull(model);// found the model of entity
+		SqlBoxException.assureNotEmpty(alias); // found the alias
+		List<ColumnModel> pkeys = new ArrayList<ColumnModel>();
+		for (ColumnModel col : model.getColumns())
+			if (col.getPkey() && !col.getTransientable())
+				pkeys.add(col);
+		SqlBoxException.assureTrue(!pkeys.isEmpty());
+		if (pkeys.size() == 1)
+			doAppendInParameters(ps, alias, pkeys.get(0));
+		else
+			doAppendOrParameters(ps, alias, pkeys);
+	}
+
+	private void doAppendInParameters(PreparedSQL ps, String alias, ColumnModel col) {
+		ps.addSql(alias).append(".").append(col.getColumnName()).append(" in (");
+		for (int i = 0; i < entities.size(); i++) {
+			if (i > 0)
+				ps.addSql(",");
+			ps.addSql("?");
+			ps.addParam(SqlBoxContextUtils.readValueFromBeanFieldOrTail(entities.get(i), col));
+		}
+		ps.addSql(") ");
+	}
+
+	private void doAppendOrParameters(PreparedSQL ps, String alias, List<ColumnModel> pkeys) {
+		ps.addSql("(");
+		for (int i = 0; i < entities.size(); i++) {
+			ps.addSql(i > 0 ? " or (" : "(");
+			for (int j = 0; j < pkeys.size(); j++) {
+				ColumnModel col = pkeys.get(j);
+				if (j > 0)
+					ps.addSql(" and ");
+				ps.addSql(alias).append(".").append(col.getColumnName()).append("=?");
+				ps.addParam(SqlBoxContextUtils.readValueFromBeanFieldOrTail(entities.get(i), col));
+			}
+			ps.addSql(")");
+		}
+		ps.addSql(") ");
+	}
+}
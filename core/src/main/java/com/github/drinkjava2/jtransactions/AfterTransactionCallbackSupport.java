@@ -0,0 +1,42 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.jtransactions;
+
+import javax.sql.DataSource;
+
+/**
+ * An optional interface a ConnectionManager can implement if it can run
+ * callbacks after transaction end. Caches (e.g. query result cache handlers and
+ * entity cache) rely on it to invalidate values changed in a transaction once
+ * it committed, for a ConnectionManager not implement it, values cached by
+ * other threads during a transaction may be stale until they expired and entity
+ * cache is not used.
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public interface AfterTransactionCallbackSupport {
+
+	/**
+	 * Return true if this ConnectionManager can run callbacks after transaction
+	 * end, see addAfterTransactionCallback method
+	 */
+	boolean supportsAfterTransactionCallback();
+
+	/**
+	 * Register a callback to run after current thread's transaction of given
+	 * dataSource end (committed or rolled back), return false if not registered
+	 * (not in transaction or not supported)
+	 */
+	boolean addAfterTransactionCallback(DataSource dataSource, Runnable callback);
+
+}
@@ -11,11 +11,14 @@
 */
 package com.github.drinkjava2.jtransactions.spring;
 
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 
 import javax.sql.DataSource;
 
+import com.github.drinkjava2.jtransactions.AfterTransactionCallbackSupport;
 import com.github.drinkjava2.jtransactions.ConnectionManager;
 import com.github.drinkjava2.jtransactions.TransactionsException;
 
@@ -26,10 +29,13 @@ import com.github.drinkjava2.jtransactions.TransactionsException;
  * @author Yong Zhu
  * @since 1.0.0
  */
-public class SpringTxConnectionManager implements ConnectionManager {
+public class SpringTxConnectionManager implements ConnectionManager, AfterTransactionCallbackSupport {
 	protected final Method getConnectionMethod;
 	protected final Method releaseConnectionMethod;
 	protected final Method getResourceMethod;
+	protected final Method isSynchronizationActiveMethod;
+	protected final Method registerSynchronizationMethod;
+	protected final Class<?> transactionSynchronizationClass;
 
 	public SpringTxConnectionManager() {
 		Class<?> dataSourceUtilClass;
@@ -52,6 +58,12 @@ public class SpringTxConnectionManager implements ConnectionManager {
 			releaseConnectionMethod = dataSourceUtilClass.getMethod("releaseConnection", Connection.class,
 					DataSource.class);
 			getResourceMethod = transactionSynchronizationManagerClass.getMethod("getResource", Object.class);
+			isSynchronizationActiveMethod = transactionSynchronizationManagerClass
+					.getMethod("isSynchronizationActive");
+			transactionSynchronizationClass = Class
+					.forName("org.springframework.transaction.support.TransactionSynchronization");
+			registerSynchronizationMethod = transactionSynchronizationManagerClass
+					.getMethod("registerSynchronization", transactionSynchronizationClass);
 		} catch (Exception e) {
 			throw new TransactionsException("Error: SpringTxConnectionManager initialize failed.", e);
 		}
@@ -102,4 +114,60 @@ public class SpringTxConnectionManager implements ConnectionManager {
 		}
 	}
 
+	@Override
+	public boolean supportsAfterTransactionCallback() {
+		return true;
+	}
+
+	/**
+	 * Equal to register a Spring TransactionSynchronization, callback run in its
+	 * afterCompletion method. Synchronizations of equal callbacks are equal, so
+	 * Spring only keep one of them for a transaction
+	 */
+	@Override
+	public boolean addAfterTransactionCallback(DataSource ds, Runnable callback) {
+		if (!isInTransaction(ds))
+			return false;
+		try {
+			if (!Boolean.TRUE.equals(isSynchronizationActiveMethod.invoke(null)))
+				return false;
+			Object synchronization = Proxy.newProxyInstance(transactionSynchronizationClass.getClassLoader(),
+					new Class<?>[] { transactionSynchronizationClass }, new CallbackSynchronization(callback));
+			registerSynchronizationMethod.invoke(null, synchronization);
+			return true;
+		} catch (Exception e) {
+			throw new TransactionsException("Error: SpringTxConnectionManager fail to register callback.", e);
+		}
+	}
+
+	/**
+	 * InvocationHandler of a proxy TransactionSynchronization, equals and
+	 * hashCode are delegated to the wrapped callback
+	 */
+	static class CallbackSynchronization implements InvocationHandler {
+		final Runnable callback;
+
+		CallbackSynchronization(Runnable callback) {
+			this.callback = callback;
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			if ("afterCompletion".equals(name))
+				callback.run();
+			else if ("getOrder".equals(name))
+				return Integer.MAX_VALUE; // Ordered.LOWEST_PRECEDENCE
+			else if ("equals".equals(name))
+				return args[0] != null && Proxy.isProxyClass(args[0].getClass())
+						&& Proxy.getInvocationHandler(args[0]) instanceof CallbackSynchronization
+						&& callback.equals(((CallbackSynchronization) Proxy.getInvocationHandler(args[0])).callback);
+			else if ("hashCode".equals(name))
+				return callback.hashCode();
+			else if ("toString".equals(name))
+				return "AfterTransactionCallback:" + callback;
+			return null;
+		}
+	}
+
 }
@@ -19,10 +19,13 @@ package com.github.drinkjava2.jtransactions.tinytx;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 
 import javax.sql.DataSource;
 
+import com.github.drinkjava2.jtransactions.AfterTransactionCallbackSupport;
 import com.github.drinkjava2.jtransactions.ConnectionManager;
 import com.github.drinkjava2.jtransactions.TransactionsException;
 
@@ -33,7 +36,7 @@ import com.github.drinkjava2.jtransactions.TransactionsException;
  * @author Yong Zhu
  * @since 1.0.0
  */
-public class TinyTxConnectionManager implements ConnectionManager {
+public class TinyTxConnectionManager implements ConnectionManager, AfterTransactionCallbackSupport {
 
 	private static class InnerTinyTxConnectionManager {// NOSONAR
 		private static final TinyTxConnectionManager INSTANCE = new TinyTxConnectionManager();
@@ -53,6 +56,14 @@ public class TinyTxConnectionManager implements ConnectionManager {
 		}
 	};
 
+	/** Callbacks run after current thread's transaction ended */
+	private static final ThreadLocal<Map<DataSource, Set<Runnable>>> afterTransactionCallbacks = new ThreadLocal<Map<DataSource, Set<Runnable>>>() {
+		@Override
+		protected Map<DataSource, Set<Runnable>> initialValue() {
+			return new HashMap<DataSource, Set<Runnable>>();
+		}
+	};
+
 	@Override
 	public boolean isInTransaction(DataSource ds) {
 		TransactionsException.assureNotNull(ds, "DataSource can not be null in isInTransaction method");
@@ -67,6 +78,34 @@ public class TinyTxConnectionManager implements ConnectionManager {
 	public void endTransaction(DataSource ds) {
 		TransactionsException.assureNotNull(ds, "DataSource can not be null in endTransaction method");
 		threadLocalConnections.get().remove(ds);
+		Set<Runnable> callbacks = afterTransactionCallbacks.get().remove(ds);
+		if (callbacks != null)
+			for (Runnable callback : callbacks)
+				callback.run();
+	}
+
+	@Override
+	public boolean supportsAfterTransactionCallback() {
+		return true;
+	}
+
+	/**
+	 * Register a callback to run after current thread's transaction of given
+	 * DataSource committed or rollbacked, equal callbacks only run once
+	 */
+	@Override
+	public boolean addAfterTransactionCallback(DataSource ds, Runnable callback) {
+		TransactionsException.assureNotNull(ds, "DataSource can not be null in addAfterTransactionCallback method");
+		if (!isInTransaction(ds))
+			return false;
+		Map<DataSource, Set<Runnable>> map = afterTransactionCallbacks.get();
+		Set<Runnable> callbacks = map.get(ds);
+		if (callbacks == null) {
+			callbacks = new LinkedHashSet<Runnable>();
+			map.put(ds, callbacks);
+		}
+		callbacks.add(callback);
+		return true;
 	}
 
 	@Override
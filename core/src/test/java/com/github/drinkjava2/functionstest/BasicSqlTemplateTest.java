@@ -0,0 +1,129 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdbpro.template.BasicSqlTemplate;
+import com.github.drinkjava2.jdbpro.template.BasicSqlTemplate.BasicSqlTemplateException;
+
+/**
+ * Unit test of BasicSqlTemplate
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class BasicSqlTemplateTest {
+
+	public static class Address {
+		public String getCity() {
+			return "BeiJing";
+		}
+	}
+
+	public static class User {
+		private String name = "Tom";
+		private Integer age = 10;
+
+		public Address getAddress() {
+			return new Address();
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public Integer getAge() {
+			return age;
+		}
+
+		public void setAge(Integer age) {
+			this.age = age;
+		}
+	}
+
+	private static String render(BasicSqlTemplate engine, String template, Map<String, Object> map,
+			Object... unbindParams) {
+		PreparedSQL ps = engine.render(template, map, unbindParams);
+		return ps.getSql() + " " + Arrays.toString(ps.getParams());
+	}
+
+	@Test
+	public void testRender() {
+		BasicSqlTemplate engine = BasicSqlTemplate.instance();
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("name", "Tom");
+		map.put("age", 10);
+		map.put("tb", "users");
+		map.put("u", new User());
+		for (int i = 0; i < 2; i++) { // 2nd time use compiled template
+			Assert.assertEquals("select * from users where name=? and age>? [Tom, 10]",
+					render(engine, "select * from ${tb} where name=#{name} and age>:age", map));
+			Assert.assertEquals("select Tom from users where age=? [10]",
+					render(engine, "select ${u.name} from users where age=#{u.age}", map));
+			Assert.assertEquals("select * from users where city=? [BeiJing]",
+					render(engine, "select * from users where city=:u.address.city", map));
+			Assert.assertEquals("select 1 []", render(engine, "select 1", map));
+			Assert.assertEquals(" []", render(engine, "", map));
+		}
+		Map<String, Object> empty = new HashMap<String, Object>();
+		Assert.assertEquals("select * from users where name=? and age>? [Tom, 10]",
+				render(engine, "select * from ${tb} where name=#{name} and age>:age", empty, "users", "Tom", 10));
+
+		BasicSqlTemplate dollar = new BasicSqlTemplate("@", "]", false, true);
+		map.put("$tb", "orders");
+		Assert.assertEquals("select * from orders where name=? and :x [Tom]",
+				render(dollar, "select * from ${tb} where name=@name] and :x", map));
+	}
+
+	/** Expose compile method to check compiled templates cache */
+	public static class CachedSqlTemplate extends BasicSqlTemplate {
+		public Object compileTemplate(String template) {
+			return compile(template);
+		}
+	}
+
+	@Test
+	public void testCompiledCacheEviction() {
+		CachedSqlTemplate engine = new CachedSqlTemplate();
+		for (int i = 0; i < 5000; i++)// one-off templates
+			engine.compileTemplate("select " + i + " from users where id=#{id}");
+		String hot = "select * from users where name=#{name}";// seen after cache full
+		Assert.assertSame(engine.compileTemplate(hot), engine.compileTemplate(hot));
+	}
+
+	@Test
+	public void testErrors() {
+		BasicSqlTemplate engine = BasicSqlTemplate.instance();
+		Map<String, Object> map = new HashMap<String, Object>();
+		map.put("u", new User());
+		String[] badTemplates = { "select #{name}", "select #{name", "select #{.name}", "select #{u.}",
+				"select #{u..age}", "select #{u.address.zip}", "select #{x.age}" };
+		for (String template : badTemplates)
+			try {
+				engine.render(template, map, null);
+				Assert.fail("Should throw exception: " + template);
+			} catch (BasicSqlTemplateException e) {
+				// expected
+			}
+	}
+}
@@ -16,13 +16,29 @@
 package com.github.drinkjava2.functionstest;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
 import com.github.drinkjava2.config.TestBase;
+import com.github.drinkjava2.jdbpro.DefaultOrderSqlHandler;
+import com.github.drinkjava2.jdbpro.ImprovedQueryRunner;
+import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdbpro.NormalJdbcTool;
+import com.github.drinkjava2.jdbpro.SqlHandler;
+import com.github.drinkjava2.jdialects.Dialect;
+import com.github.drinkjava2.jdialects.TableModelUtils;
+import com.github.drinkjava2.jdialects.Type;
+import com.github.drinkjava2.jdialects.annotation.jdia.IdentityId;
+import com.github.drinkjava2.jdialects.annotation.jpa.Id;
+import com.github.drinkjava2.jdialects.id.IdGenerator;
+import com.github.drinkjava2.jdialects.id.SnowflakeCreator;
+import com.github.drinkjava2.jdialects.id.UUID32Generator;
+import com.github.drinkjava2.jdialects.model.TableModel;
 import com.github.drinkjava2.jsqlbox.ActiveRecord;
 
 /**
@@ -55,10 +71,84 @@ public class BatchInsertTest extends TestBase {
 
 	}
 
+	public static class IdentityUser extends ActiveRecord<IdentityUser> {
+		@IdentityId
+		@Id
+		private Integer id;
+		private String name;
+
+		public Integer getId() {
+			return id;
+		}
+
+		public void setId(Integer id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	public static class BatchIdUser extends ActiveRecord<BatchIdUser> {
+		private String id;
+		private Long snow;
+		private String name;
+
+		public String getId() {
+			return id;
+		}
+
+		public void setId(String id) {
+			this.id = id;
+		}
+
+		public Long getSnow() {
+			return snow;
+		}
+
+		public void setSnow(Long snow) {
+			this.snow = snow;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	/** A UUID32 generator count how many times getNextIDs called */
+	public static class CountingIdGenerator extends UUID32Generator {
+		int batchCalls = 0;
+
+		@Override
+		public List<Object> getNextIDs(NormalJdbcTool jdbc, Dialect dialect, Type dataType, int count) {
+			batchCalls++;
+			return super.getNextIDs(jdbc, dialect, dataType, count);
+		}
+
+		@Override
+		public String getIdGenName() {
+			return "counting";
+		}
+
+		@Override
+		public IdGenerator newCopy() {
+			return this;
+		}
+	}
+
 	@Before
 	public void init() {
 		super.init();
-		createAndRegTables(DummyUser.class); 
+		createAndRegTables(DummyUser.class, IdentityUser.class, Demo.class);
 	}
  
 	@Test
@@ -69,4 +159,104 @@ public class BatchInsertTest extends TestBase {
 		ctx.nBatch("INSERT INTO DummyUser(name, age) VALUES(?,?)", params);
 		Assert.assertEquals(2L, ctx.pQueryForLongValue("select count(*) from DummyUser"));
 	}
+
+	@Test
+	public void eInsertBatchTest() {
+		ctx.setBatchSize(3);
+		List<Demo> demos = new ArrayList<Demo>();
+		for (int i = 0; i < 10; i++)
+			demos.add(new Demo().putField("name", "Demo" + i, "age", i));
+		Assert.assertEquals(10, ctx.eInsertBatch(demos));
+		Assert.assertEquals(10L, ctx.pQueryForLongValue("select count(*) from Demo"));
+		for (Demo demo : demos)
+			Assert.assertEquals(demo.getName(), ctx.eLoadById(Demo.class, demo.getId()).getName());
+
+		// no primary key, inserted one by one
+		List<DummyUser> dummies = new ArrayList<DummyUser>();
+		for (int i = 0; i < 4; i++)
+			dummies.add(new DummyUser().putField("name", "Dummy" + i, "age", i));
+		Assert.assertEquals(4, ctx.eInsertBatch(dummies));
+		Assert.assertEquals(4L, ctx.pQueryForLongValue("select count(*) from DummyUser"));
+	}
+
+	public static class CountSqlHandler extends DefaultOrderSqlHandler {
+		int count = 0;
+
+		@Override
+		public Object handle(ImprovedQueryRunner runner, PreparedSQL ps) {
+			count++;
+			return runner.runPreparedSQL(ps);
+		}
+	}
+
+	@Test
+	public void eInsertBatchHandlersTest() {
+		ctx.setBatchSize(3);
+		CountSqlHandler handler = new CountSqlHandler();
+		ctx.setSqlHandlers(new SqlHandler[] { handler });
+		try {
+			List<Demo> demos = new ArrayList<Demo>();
+			for (int i = 0; i < 5; i++)
+				demos.add(new Demo().putField("name", "Demo" + i, "age", i));
+			Assert.assertEquals(5, ctx.eInsertBatch(demos));
+			Assert.assertEquals(5, handler.count); // each row go through SqlHandlers
+			Assert.assertFalse(ctx.isBatchEnabled());
+		} finally {
+			ctx.setSqlHandlers(null);
+		}
+		Assert.assertEquals(5L, ctx.pQueryForLongValue("select count(*) from Demo"));
+	}
+
+	@Test
+	public void eInsertBatchIdentityTest() {
+		ctx.setBatchSize(3);
+		List<IdentityUser> users = new ArrayList<IdentityUser>();
+		for (int i = 0; i < 7; i++)
+			users.add(new IdentityUser().putField("name", "User" + i));
+		Assert.assertEquals(7, ctx.eInsertBatch(users));
+		for (IdentityUser u : users) {
+			Assert.assertNotNull(u.getId());
+			Assert.assertEquals(u.getName(), ctx.eLoadById(IdentityUser.class, u.getId()).getName());
+		}
+	}
+
+	@Test
+	public void eInsertBatchIdsTest() {
+		CountingIdGenerator counting = new CountingIdGenerator();
+		TableModel model = TableModelUtils.entity2Model(BatchIdUser.class);
+		model.addGenerator(counting);
+		model.column("id").pkey().idGenerator("counting");
+		model.column("snow").snowflake();
+		model.setReadOnly(true); // only read-only model has cached CrudPlan
+		createTables(model);
+		try {
+			ctx.setSnowflakeCreator(new SnowflakeCreator(5, 5, 0, 1));
+			ctx.setBatchSize(3);
+			List<BatchIdUser> users = new ArrayList<BatchIdUser>();
+			for (int i = 0; i < 7; i++)
+				users.add(new BatchIdUser().putField("name", "User" + i));
+			Assert.assertEquals(7, ctx.eInsertBatch(users, model));
+			Assert.assertEquals(3, counting.batchCalls); // ids of each chunk created in one call
+			Set<String> ids = new HashSet<String>();
+			long lastSnow = 0;
+			for (BatchIdUser u : users) {
+				ids.add(u.getId());
+				Assert.assertTrue(u.getSnow() > lastSnow);
+				lastSnow = u.getSnow();
+				Assert.assertEquals(u.getSnow(), ctx.eLoadById(BatchIdUser.class, u.getId(), model).getSnow());
+			}
+			Assert.assertEquals(7, ids.size());
+		} finally {
+			dropTables(model);
+		}
+	}
+
+	@Test
+	public void identityInsertTest() {
+		IdentityUser u1 = new IdentityUser().putField("name", "Tom").insert();
+		IdentityUser u2 = new IdentityUser().putField("name", "Sam").insert();
+		Assert.assertNotNull(u1.getId());
+		Assert.assertEquals(u1.getId() + 1, (int) u2.getId());
+		Assert.assertEquals("Sam", ctx.eLoadById(IdentityUser.class, u2.getId()).getName());
+	}
 }
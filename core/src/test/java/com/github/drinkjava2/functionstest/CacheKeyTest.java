@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest;
+
+import org.apache.commons.dbutils.handlers.ArrayListHandler;
+import org.apache.commons.dbutils.handlers.MapListHandler;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdbpro.SqlOption;
+import com.github.drinkjava2.jdbpro.handler.CacheKey;
+
+/**
+ * Unit test of CacheKey
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class CacheKeyTest {
+
+	@Test
+	public void testEquals() {
+		String sql = "select * from users where id=?";
+		CacheKey key = new CacheKey(sql, ArrayListHandler.class, 1, "a");
+		CacheKey same = new CacheKey(new String(sql), ArrayListHandler.class, 1, "a");
+		Assert.assertEquals(key, same);
+		Assert.assertEquals(key.hashCode(), same.hashCode());
+		Assert.assertSame(key.getSql(), same.getSql());
+
+		Assert.assertNotEquals(key, new CacheKey(sql, MapListHandler.class, 1, "a"));
+		Assert.assertNotEquals(key, new CacheKey(sql, ArrayListHandler.class, 1, "b"));
+		Assert.assertNotEquals(key, new CacheKey(sql, ArrayListHandler.class, 1));
+		// Same toString but different values
+		Assert.assertNotEquals(new CacheKey(sql, null, 1), new CacheKey(sql, null, "1"));
+		Assert.assertNotEquals(new CacheKey(sql, null, "1", "23"), new CacheKey(sql, null, "12", "3"));
+		// Arrays compared by content
+		Assert.assertEquals(new CacheKey(sql, null, new byte[] { 1, 2 }), new CacheKey(sql, null, new byte[] { 1, 2 }));
+	}
+
+	@Test
+	public void testOfPreparedSQL() {
+		PreparedSQL ps = new PreparedSQL(SqlOption.QUERY, null, new ArrayListHandler(), "select 1 from dual", 5);
+		PreparedSQL ps2 = new PreparedSQL(SqlOption.QUERY, null, new ArrayListHandler(), "select 1 from dual", 5);
+		Assert.assertEquals(CacheKey.of(ps), CacheKey.of(ps2));
+		Assert.assertEquals(ArrayListHandler.class, CacheKey.of(ps).getHandlerClass());
+	}
+}
@@ -0,0 +1,58 @@
+package com.github.drinkjava2.functionstest;
+
+import static com.github.drinkjava2.jsqlbox.JSQLBOX.IGNORE_NULL;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.config.TestBase;
+import com.github.drinkjava2.functionstest.CrudTest.CrudUser;
+import com.github.drinkjava2.jdialects.TableModelUtils;
+import com.github.drinkjava2.jdialects.model.TableModel;
+import com.github.drinkjava2.jsqlbox.CrudPlan;
+import com.github.drinkjava2.jsqlbox.SqlBoxContextUtils;
+
+/**
+ * Test cached CRUD plans of entity
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class CrudPlanTest extends TestBase {
+	{
+		regTables(CrudUser.class);
+	}
+
+	@Test
+	public void testPlanSql() {
+		TableModel model = TableModelUtils.entity2ReadOnlyModel(CrudUser.class);
+		CrudPlan plan = SqlBoxContextUtils.findCrudPlan(model);
+		Assert.assertNotNull(plan);
+		Assert.assertSame(plan, SqlBoxContextUtils.findCrudPlan(model));
+		Assert.assertTrue(plan.getDeleteSql().endsWith(" where name=?"));
+		Assert.assertTrue(plan.getLoadSql().startsWith("select "));
+		Assert.assertEquals(3, plan.getInsertColumns().length);
+		Assert.assertEquals(2, plan.getUpdateColumns().length);
+
+		// Not read-only model may be changed later, no plan for it
+		Assert.assertNull(SqlBoxContextUtils.findCrudPlan(TableModelUtils.entity2Model(CrudUser.class)));
+	}
+
+	@Test
+	public void testPlannedCrud() {
+		CrudUser u = new CrudUser("Tom", "BeiJing");
+		u.setAge(10);
+		ctx.eInsert(u);
+		u.setAddress(null);
+		u.setAge(20);
+		ctx.eUpdate(u, IGNORE_NULL);
+		CrudUser u2 = ctx.eLoadById(CrudUser.class, "Tom");
+		Assert.assertEquals("BeiJing", u2.getAddress());
+		Assert.assertEquals(20, (int) u2.getAge());
+		ctx.eUpdate(u);
+		Assert.assertNull(ctx.eLoadById(CrudUser.class, "Tom").getAddress());
+		Assert.assertTrue(ctx.eExistById(CrudUser.class, "Tom"));
+		ctx.eDeleteById(CrudUser.class, "Tom");
+		Assert.assertFalse(ctx.eExist(u));
+	}
+}
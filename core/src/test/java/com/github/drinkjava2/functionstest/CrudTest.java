@@ -4,6 +4,7 @@ import static com.github.drinkjava2.jsqlbox.JSQLBOX.IGNORE_NULL;
 import static com.github.drinkjava2.jsqlbox.JSQLBOX.TAIL;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.junit.Assert;
@@ -245,4 +246,16 @@ public class CrudTest extends TestBase {
 		Assert.assertEquals(0, u1.countAll());
 	}
 
+	@Test
+	public void entityListMappingTest() {
+		new CrudUser("Name1", "Address1").insert();
+		List<CrudUser> users = ctx.eFindBySQL(CrudUser.class,
+				"select name, address, 'China' as country, 'Address2' as ADDRESS from CrudUser");
+		Assert.assertEquals(1, users.size());
+		CrudUser u = users.get(0);
+		Assert.assertEquals("Name1", u.getName());
+		Assert.assertEquals("Address2", u.getAddress()); // the last duplicated column wins
+		Assert.assertEquals("China", u.getTail("country"));
+	}
+
 }
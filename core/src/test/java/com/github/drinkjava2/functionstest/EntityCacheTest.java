@@ -0,0 +1,186 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.config.TestBase;
+import com.github.drinkjava2.jdialects.TableModelUtils;
+import com.github.drinkjava2.jdialects.annotation.jdia.EntityCache;
+import com.github.drinkjava2.jdialects.annotation.jpa.Id;
+import com.github.drinkjava2.jdialects.model.TableModel;
+import com.github.drinkjava2.jsqlbox.EntityCacheRegion;
+import com.github.drinkjava2.jtransactions.ConnectionManager;
+
+/**
+ * Test second level entity cache of eLoadById/eExistById
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class EntityCacheTest extends TestBase {
+	{
+		regTables(CachedUser.class, ConfigCachedUser.class);
+	}
+
+	@EntityCache(capacity = 100, aliveSeconds = 60)
+	public static class CachedUser {
+		@Id
+		private String name;
+		private Integer age;
+
+		public CachedUser() {
+		}
+
+		public CachedUser(String name, Integer age) {
+			this.name = name;
+			this.age = age;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public Integer getAge() {
+			return age;
+		}
+
+		public void setAge(Integer age) {
+			this.age = age;
+		}
+	}
+
+	public static class ConfigCachedUser {
+		@Id
+		private Integer id;
+		private String name;
+
+		public static void config(TableModel t) {
+			t.entityCache(2, 1);
+		}
+
+		public Integer getId() {
+			return id;
+		}
+
+		public void setId(Integer id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+	private EntityCacheRegion region(Class<?> entityClass) {
+		return ctx.getEntityCacheRegion(TableModelUtils.entity2ReadOnlyModel(entityClass));
+	}
+
+	@Test
+	public void testLoadById() {
+		ctx.eInsert(new CachedUser("Tom", 10));
+		EntityCacheRegion region = region(CachedUser.class);
+		Assert.assertEquals(100, region.getCapacity());
+		CachedUser u1 = ctx.eLoadById(CachedUser.class, "Tom");
+		CachedUser u2 = ctx.eLoadById(CachedUser.class, "Tom");
+		Assert.assertEquals(1, region.getHitCount());
+		Assert.assertNotSame(u1, u2);
+		u2.setAge(99); // change returned bean does not change cached values
+		Assert.assertEquals(10, (int) ctx.eLoadById(CachedUser.class, "Tom").getAge());
+		Assert.assertEquals(2, region.getHitCount());
+
+		Assert.assertNull(ctx.eLoadByIdTry(CachedUser.class, "Jerry"));
+		Assert.assertTrue(ctx.eExistById(CachedUser.class, "Tom"));
+		Assert.assertFalse(ctx.eExistById(CachedUser.class, "Jerry"));
+	}
+
+	@Test
+	public void testInvalidation() {
+		ctx.eInsert(new CachedUser("Tom", 10));
+		Assert.assertEquals(10, (int) ctx.eLoadById(CachedUser.class, "Tom").getAge());
+		ctx.eUpdate(new CachedUser("Tom", 20));
+		Assert.assertEquals(20, (int) ctx.eLoadById(CachedUser.class, "Tom").getAge());
+		ctx.pUpdate("update CachedUser set age=? where name=?", 30, "Tom");
+		Assert.assertEquals(30, (int) ctx.eLoadById(CachedUser.class, "Tom").getAge());
+		ctx.eDeleteById(CachedUser.class, "Tom");
+		Assert.assertNull(ctx.eLoadByIdTry(CachedUser.class, "Tom"));
+		Assert.assertFalse(ctx.eExistById(CachedUser.class, "Tom"));
+	}
+
+	/** A ConnectionManager can not run callbacks after transaction end */
+	public static class NoCallbackConnectionManager implements ConnectionManager {
+		@Override
+		public Connection getConnection(DataSource ds) throws SQLException {
+			return ds.getConnection();
+		}
+
+		@Override
+		public void releaseConnection(Connection conn, DataSource ds) throws SQLException {
+			conn.close();
+		}
+
+		@Override
+		public boolean isInTransaction(DataSource ds) {
+			return false;
+		}
+	}
+
+	@Test
+	public void testDisabledByConnectionManager() {
+		ctx.eInsert(new CachedUser("Tom", 10));
+		ConnectionManager old = ctx.getConnectionManager();
+		ctx.setConnectionManager(new NoCallbackConnectionManager());
+		try {
+			EntityCacheRegion region = region(CachedUser.class);
+			for (int i = 0; i < 3; i++)
+				Assert.assertEquals(10, (int) ctx.eLoadById(CachedUser.class, "Tom").getAge());
+			Assert.assertTrue(ctx.eExistById(CachedUser.class, "Tom"));
+			Assert.assertEquals(0, region.size());
+			Assert.assertEquals(0, region.getHitCount());
+		} finally {
+			ctx.setConnectionManager(old);
+		}
+	}
+
+	@Test
+	public void testCapacityAndAlive() throws InterruptedException {
+		for (int i = 1; i <= 3; i++) {
+			ConfigCachedUser u = new ConfigCachedUser();
+			u.setId(i);
+			u.setName("Name" + i);
+			ctx.eInsert(u);
+		}
+		EntityCacheRegion region = region(ConfigCachedUser.class);
+		for (int i = 1; i <= 3; i++)
+			Assert.assertEquals("Name" + i, ctx.eLoadById(ConfigCachedUser.class, i).getName());
+		Assert.assertEquals(2, region.size());
+		ctx.eLoadById(ConfigCachedUser.class, 3);
+		Assert.assertEquals(1, region.getHitCount());
+		Thread.sleep(1100);
+		ctx.eLoadById(ConfigCachedUser.class, 3);
+		Assert.assertEquals(1, region.getHitCount());
+	}
+}
@@ -0,0 +1,75 @@
+package com.github.drinkjava2.functionstest;
+
+import static com.github.drinkjava2.jdbpro.JDBPRO.fetchSize;
+import static com.github.drinkjava2.jdbpro.JDBPRO.param;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.config.TestBase;
+import com.github.drinkjava2.functionstest.CrudTest.CrudUser;
+import com.github.drinkjava2.jsqlbox.EntityVisitor;
+import com.github.drinkjava2.jsqlbox.SqlBoxContext;
+
+/**
+ * Test eForEach method, entities are mapped from ResultSet one by one
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class EntityForEachTest extends TestBase {
+	{
+		regTables(CrudUser.class);
+	}
+
+	@Test
+	public void testForEach() {
+		for (int i = 0; i < 100; i++)
+			new CrudUser("Name" + i, "Address" + i).insert();
+		final List<String> names = new ArrayList<String>();
+		int count = ctx.eForEach(CrudUser.class, new EntityVisitor<CrudUser>() {
+			public void visit(CrudUser user) {
+				Assert.assertEquals(user.getName().substring(4), user.getAddress().substring(7));
+				names.add(user.getName());
+			}
+		}, fetchSize(10));
+		Assert.assertEquals(100, count);
+		Assert.assertEquals(100, names.size());
+
+		count = ctx.eForEach(CrudUser.class, new EntityVisitor<CrudUser>() {
+			public void visit(CrudUser user) {// do nothing
+			}
+		}, " where name like ?", param("Name1%"));
+		Assert.assertEquals(11, count);
+	}
+
+	@Test
+	public void testFetchSizeNotInherited() {
+		for (int i = 0; i < 3; i++)
+			new CrudUser("Name" + i, "Address" + i).insert();
+		final List<Integer> fetchSizes = new ArrayList<Integer>();
+		final SqlBoxContext ctx2 = new SqlBoxContext(dataSource) {
+			@Override
+			protected PreparedStatement prepareStatement(Connection conn, String sql) throws SQLException {
+				PreparedStatement stmt = super.prepareStatement(conn, sql);
+				fetchSizes.add(stmt.getFetchSize());
+				return stmt;
+			}
+		};
+		ctx2.eForEach(CrudUser.class, new EntityVisitor<CrudUser>() {
+			public void visit(CrudUser user) {
+				ctx2.pQueryForLongValue("select count(*) from CrudUser");
+			}
+		}, fetchSize(7));
+		Assert.assertEquals(4, fetchSizes.size());
+		Assert.assertEquals(7, (int) fetchSizes.get(0));
+		for (int i = 1; i < fetchSizes.size(); i++)
+			Assert.assertNotEquals(7, (int) fetchSizes.get(i));
+	}
+}
@@ -18,6 +18,19 @@ package com.github.drinkjava2.functionstest;
 import static com.github.drinkjava2.jdbpro.JDBPRO.param;
 import static com.github.drinkjava2.jdbpro.JDBPRO.valuesQuestions;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -25,15 +38,21 @@ import com.github.drinkjava2.config.TestBase;
 import com.github.drinkjava2.jdialects.TableModelUtils;
 import com.github.drinkjava2.jdialects.Type;
 import com.github.drinkjava2.jdialects.annotation.jdia.PKey;
+import com.github.drinkjava2.jdialects.annotation.jpa.GeneratedValue;
 import com.github.drinkjava2.jdialects.annotation.jpa.GenerationType;
 import com.github.drinkjava2.jdialects.annotation.jpa.Id;
+import com.github.drinkjava2.jdialects.annotation.jpa.SequenceGenerator;
 import com.github.drinkjava2.jdialects.id.AutoIdGenerator;
 import com.github.drinkjava2.jdialects.id.IdGenerator;
+import com.github.drinkjava2.jdialects.id.SequenceIdGenerator;
 import com.github.drinkjava2.jdialects.id.SortedUUIDGenerator;
 import com.github.drinkjava2.jdialects.id.UUID25Generator;
 import com.github.drinkjava2.jdialects.id.UUID32Generator;
 import com.github.drinkjava2.jdialects.id.UUID36Generator;
 import com.github.drinkjava2.jdialects.model.TableModel;
+import com.github.drinkjava2.jsqlbox.SqlBoxContext;
+import com.github.drinkjava2.jtransactions.ConnectionManager;
+import com.github.drinkjava2.jtransactions.tinytx.TinyTxConnectionManager;
 
 /**
  * Unit test for SortedUUIDGenerator
@@ -214,6 +233,84 @@ public class IdGeneratorTest extends TestBase {
 		}
 	}
 
+	@Test
+	public void testSequenceIdGeneratorPooled() throws InterruptedException {
+		if (!dialect.getDdlFeatures().getSupportsPooledSequences())
+			return;
+		TableModel table = new TableModel("testSeqPooled");
+		table.sequenceGenerator("seqp", "seqp", 1, 10);
+		table.column("id").LONG().pkey().idGenerator("seqp");
+		table.column("id2").LONG().sequenceGenerator("seqs", "seqs", 1, 1);
+		createAndRegTables(table);
+		final IdGenerator gen = table.getIdGenerator("seqp");
+		Assert.assertEquals(1L, ((Number) gen.getNextID(ctx, dialect, null)).longValue());
+		Assert.assertEquals(11L, ((Number) gen.getNextID(ctx, dialect, null)).longValue()); // not pooled default
+
+		ctx.nExecute("drop sequence seqp");
+		ctx.nExecute("create sequence seqp start with 1 increment by 10");
+		((SequenceIdGenerator) gen).setPooled(true);
+		for (long i = 1; i <= 25; i++)
+			Assert.assertEquals(i, ((Number) gen.getNextID(ctx, dialect, null)).longValue());
+
+		final Set<Object> ids = Collections.synchronizedSet(new HashSet<Object>());
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 500; i++)
+						ids.add(gen.getNextID(ctx, dialect, null));
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		Assert.assertEquals(2000, ids.size());
+
+		SequenceIdGenerator seqs = (SequenceIdGenerator) table.getIdGenerator("seqs");
+		List<Object> values = seqs.getNextIDs(ctx, dialect, null, 5);
+		Assert.assertEquals(5, new HashSet<Object>(values).size());
+		Assert.assertEquals(6L, ((Number) seqs.getNextID(ctx, dialect, null)).longValue());
+	}
+
+	public static class PooledSeqEntity {
+		@Id
+		@SequenceGenerator(name = "seqa", sequenceName = "seqa", initialValue = 1, allocationSize = 10, pooled = true)
+		@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "seqa")
+		private Long id;
+
+		public Long getId() {
+			return id;
+		}
+
+		public void setId(Long id) {
+			this.id = id;
+		}
+	}
+
+	@Test
+	public void testSequenceIdGeneratorPooledConfig() {
+		if (!dialect.getDdlFeatures().getSupportsPooledSequences())
+			return;
+		TableModel table = new TableModel("testSeqPooledConfig");
+		table.column("id").INTEGER().pkey().sequenceGenerator("seqm", "seqm", 1, 10, true);
+		TableModel entityModel = TableModelUtils.entity2Model(PooledSeqEntity.class);
+		createAndRegTables(table, entityModel);
+
+		IdGenerator gen = table.getIdGenerator("seqm");
+		Assert.assertTrue(((SequenceIdGenerator) gen).getPooled());
+		for (int i = 1; i <= 12; i++)
+			Assert.assertEquals(i, gen.getNextID(ctx, dialect, Type.INTEGER));
+		Assert.assertEquals(13L, gen.getNextID(ctx, dialect, Type.BIGINT));
+		Assert.assertEquals(14, ((SequenceIdGenerator) gen).getNextIDs(ctx, dialect, Type.INTEGER, 1).get(0));
+
+		IdGenerator entityGen = entityModel.getIdGenerator("seqa");
+		Assert.assertTrue(((SequenceIdGenerator) entityGen).getPooled());
+		for (long i = 1; i <= 12; i++)
+			Assert.assertEquals(i, entityGen.getNextID(ctx, dialect, Type.BIGINT));
+	}
+
 	@Test
 	public void testTableIdGenerator() {
 		TableModel table1 = new TableModel("testTableIdGenerator");
@@ -245,6 +342,109 @@ public class IdGeneratorTest extends TestBase {
 		}
 	}
 
+	@Test
+	public void testTableIdGeneratorPooled() throws InterruptedException {
+		TableModel table = new TableModel("testTablePooled");
+		table.tableGenerator("tabp", "tbp", "pkCol", "valueColname", "pkColVal", 1, 10);
+		table.column("id").INTEGER().pkey().idGenerator("tabp");
+		createAndRegTables(table);
+		final IdGenerator gen = table.getIdGenerator("tabp");
+		for (int i = 1; i <= 25; i++)
+			Assert.assertEquals(i, gen.getNextID(ctx, dialect, null));
+
+		final Set<Object> ids = Collections.synchronizedSet(new HashSet<Object>());
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 500; i++)
+						ids.add(gen.getNextID(ctx, dialect, null));
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		Assert.assertEquals(2000, ids.size());
+		Assert.assertTrue(ctx.iQueryForLongValue("select max(valueColname) from tbp") >= 2025);
+	}
+
+	@Test
+	public void testTableIdGeneratorRollback() throws SQLException {
+		TableModel table = new TableModel("testTableRollback");
+		table.tableGenerator("tabr", "tbr", "pkCol", "valueColname", "pkColVal", 1, 10);
+		table.column("id").INTEGER().pkey().idGenerator("tabr");
+		createAndRegTables(table);
+		IdGenerator gen = table.getIdGenerator("tabr");
+		ConnectionManager oldManager = ctx.getConnectionManager();
+		ctx.setConnectionManager(TinyTxConnectionManager.instance());
+		Connection conn = dataSource.getConnection();
+		conn.setAutoCommit(false);
+		TinyTxConnectionManager.instance().startTransaction(dataSource, conn);
+		try {
+			Assert.assertEquals(1, gen.getNextID(ctx, dialect, null));
+		} finally {
+			conn.rollback();
+			TinyTxConnectionManager.instance().endTransaction(dataSource);
+			conn.close();
+			ctx.setConnectionManager(oldManager);
+		}
+		// Block reserved out of the transaction, not rolled back
+		Assert.assertEquals(10L, ctx.iQueryForLongValue("select valueColname from tbr"));
+		Assert.assertEquals(2, gen.getNextID(ctx, dialect, null));
+	}
+
+	/**
+	 * A DataSource always hand out same connection, close() not reset its state,
+	 * like a pool not reset connections
+	 */
+	private static DataSource singleConnectionDataSource(final Connection conn) {
+		final Connection noClose = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] { Connection.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if ("close".equals(method.getName()))
+							return null;
+						try {
+							return method.invoke(conn, args);
+						} catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+					}
+				});
+		return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+				new Class<?>[] { DataSource.class }, new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+						if ("getConnection".equals(method.getName()))
+							return noClose;
+						if (method.getDeclaringClass() == Object.class)
+							return method.invoke(this, args);
+						throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+	@Test
+	public void testTableIdGeneratorRestoreAutoCommit() throws SQLException {
+		TableModel table = new TableModel("testTableAutoCommit");
+		table.tableGenerator("taba", "tba", "pkCol", "valueColname", "pkColVal", 1, 10);
+		table.column("id").INTEGER().pkey().idGenerator("taba");
+		createAndRegTables(table);
+		IdGenerator gen = table.getIdGenerator("taba");
+		Connection conn = dataSource.getConnection();
+		try {
+			conn.setAutoCommit(false);
+			SqlBoxContext ctx2 = new SqlBoxContext(singleConnectionDataSource(conn));
+			Assert.assertEquals(1, gen.getNextID(ctx2, dialect, null));
+			Assert.assertFalse(conn.getAutoCommit());
+		} finally {
+			conn.setAutoCommit(true);
+			conn.close();
+		}
+	}
+
 	@Test
 	public void testIdentityGenerator() {
 		TableModel table = new TableModel("testIdentity");
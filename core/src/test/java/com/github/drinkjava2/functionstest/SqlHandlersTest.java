@@ -22,7 +22,9 @@ import static com.github.drinkjava2.jsqlbox.JSQLBOX.gctx;
 import static com.github.drinkjava2.jsqlbox.JSQLBOX.pQuery;
 import static com.github.drinkjava2.jsqlbox.JSQLBOX.pagin;
 
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -36,10 +38,13 @@ import com.github.drinkjava2.jbeanbox.BeanBox;
 import com.github.drinkjava2.jdbpro.DefaultOrderSqlHandler;
 import com.github.drinkjava2.jdbpro.ImprovedQueryRunner;
 import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdbpro.SqlHandler;
 import com.github.drinkjava2.jdbpro.SqlItem;
 import com.github.drinkjava2.jdbpro.SqlOption;
+import com.github.drinkjava2.jdbpro.TableTags;
 import com.github.drinkjava2.jdbpro.handler.PrintSqlHandler;
 import com.github.drinkjava2.jdbpro.handler.SimpleCacheHandler;
+import com.github.drinkjava2.jdbpro.handler.TinyLfuCacheHandler;
 import com.github.drinkjava2.jdialects.annotation.jpa.Id;
 import com.github.drinkjava2.jdialects.annotation.jpa.Table;
 import com.github.drinkjava2.jsqlbox.ActiveRecord;
@@ -47,6 +52,7 @@ import com.github.drinkjava2.jsqlbox.SqlBoxContext;
 import com.github.drinkjava2.jsqlbox.handler.EntityListHandler;
 import com.github.drinkjava2.jsqlbox.handler.PaginHandler;
 import com.github.drinkjava2.jsqlbox.handler.SSMapListHandler;
+import com.github.drinkjava2.jtransactions.tinytx.TinyTxConnectionManager;
 
 /**
  * This is function test for SqlHandlers
@@ -163,6 +169,144 @@ public class SqlHandlersTest extends TestBase {
 
 	}
 
+	@Test
+	public void testTinyLfuCacheHandler() {
+		TinyLfuCacheHandler cache = new TinyLfuCacheHandler();
+		for (int i = 0; i < 10; i++) {
+			List<DemoUser> result = pQuery(cache, new EntityListHandler(), DemoUser.class,
+					"select u.* from DemoUser u where u.age>?", 0);
+			Assert.assertEquals(99, result.size());
+		}
+		Assert.assertEquals(9, cache.getHitCount());
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(1, cache.getSize());
+
+		List<Map<String, Object>> maps = pQuery(cache, new MapListHandler(), "select u.* from DemoUser u where u.age>?",
+				0);
+		Assert.assertEquals(99, maps.size());
+		Assert.assertEquals(2, cache.getMissCount());
+		Assert.assertEquals(2, cache.getSize());
+		Assert.assertTrue(cache.getWeightedSize() > 99 * 3 * 24);
+
+		gctx().pUpdate("update DemoUser set userName=? where age>?", "x", 0);
+		List<DemoUser> result = pQuery(cache, new EntityListHandler(), DemoUser.class,
+				"select u.* from DemoUser u where u.age>?", 0);
+		Assert.assertEquals(3, cache.getMissCount()); // write invalidated cached result
+		Assert.assertEquals("x", result.get(0).getUserName());
+	}
+
+	@Test
+	public void testTinyLfuCacheLargeValue() {
+		TinyLfuCacheHandler cache = new TinyLfuCacheHandler(16 * 1000, 1000); // 1000 for each segment
+		char[] chars = new char[453];
+		Arrays.fill(chars, 'x');
+		String large = new String(chars); // weight of "big" and large is 992, bigger than main area
+		cache.put("big", large);
+		Assert.assertNull(cache.get("big"));
+		Assert.assertEquals(0, cache.getSize());
+
+		String fit = large.substring(20); // weight is 952
+		cache.put("big", fit);
+		Assert.assertEquals(fit, cache.get("big"));
+	}
+
+	@Test
+	public void testTinyLfuCacheAdmission() {
+		TinyLfuCacheHandler cache = new TinyLfuCacheHandler(16 * 1000, 1000);
+		cache.put("hot", "hot");
+		int hotMiss = 0;
+		for (int i = 0; i < 20000; i++) {// a scan of cold entries, "hot" is frequently used
+			if (i % 500 == 0 && cache.get("hot") == null) {
+				hotMiss++;
+				cache.put("hot", "hot");
+			}
+			String key = "cold" + i;
+			cache.get(key);
+			cache.put(key, key);
+		}
+		Assert.assertTrue(hotMiss <= 1);
+		Assert.assertEquals("hot", cache.get("hot"));
+		Assert.assertTrue(cache.getEvictionCount() > 0);
+		Assert.assertTrue(cache.getWeightedSize() <= 16 * 1000);
+		cache.remove("hot");
+		Assert.assertNull(cache.get("hot"));
+		cache.clearCache();
+		Assert.assertEquals(0, cache.getSize());
+	}
+
+	private static int countAgeNotLess90(SqlHandler cache) {
+		List<DemoUser> users = pQuery(cache, new EntityListHandler(), DemoUser.class,
+				"select u.* from DemoUser u where u.age>=?", 90);
+		return users.size();
+	}
+
+	@Test
+	public void testCacheInvalidation() throws SQLException {
+		TinyLfuCacheHandler cache = new TinyLfuCacheHandler();
+		SimpleCacheHandler simple = new SimpleCacheHandler();
+		String sql = "select u.* from DemoUser u where u.age>=?";
+		Assert.assertEquals(10, countAgeNotLess90(cache));
+		Assert.assertEquals(10, countAgeNotLess90(simple));
+		TableTags.invalidate("other_table");
+		Assert.assertEquals(10, countAgeNotLess90(cache));
+		Assert.assertEquals(1, cache.getHitCount());
+
+		new DemoUser().putField("id", "100", "userName", "user100", "age", 100).insert();// entity CRUD
+		Assert.assertEquals(11, countAgeNotLess90(cache));
+		Assert.assertEquals(11, countAgeNotLess90(simple));
+		Assert.assertEquals(1, cache.getHitCount());
+
+		ctx.pUpdate("delete from DemoUser where age>=?", 99);// SQL write
+		Assert.assertEquals(9, countAgeNotLess90(cache));
+		Assert.assertEquals(9, countAgeNotLess90(simple));
+
+		// Transaction-scoped write invalidate again after transaction end
+		TinyTxConnectionManager cm = TinyTxConnectionManager.instance();
+		ctx.setConnectionManager(cm);
+		Connection conn = ctx.getDataSource().getConnection();
+		try {
+			conn.setAutoCommit(false);
+			cm.startTransaction(ctx.getDataSource(), conn);
+			ctx.pUpdate("update DemoUser set age=? where age=?", 1, 98);
+			String[] tags = TableTags.readTables(sql);
+			long[] versions = TableTags.versionsOf(tags);
+			conn.commit();
+			cm.endTransaction(ctx.getDataSource());
+			Assert.assertFalse(TableTags.isCurrent(tags, versions));
+		} finally {
+			conn.setAutoCommit(true);
+			conn.close();
+			ctx.setConnectionManager(null);
+		}
+		Assert.assertEquals(8, countAgeNotLess90(cache));
+	}
+
+	@Test
+	public void testNotCacheInTransaction() throws SQLException {
+		TinyLfuCacheHandler cache = new TinyLfuCacheHandler();
+		SimpleCacheHandler simple = new SimpleCacheHandler();
+		TinyTxConnectionManager cm = TinyTxConnectionManager.instance();
+		ctx.setConnectionManager(cm);
+		Connection conn = ctx.getDataSource().getConnection();
+		try {
+			conn.setAutoCommit(false);
+			cm.startTransaction(ctx.getDataSource(), conn);
+			ctx.pUpdate("delete from DemoUser where age>=?", 95);
+			Assert.assertEquals(5, countAgeNotLess90(cache)); // uncommitted rows
+			Assert.assertEquals(5, countAgeNotLess90(simple));
+			Assert.assertEquals(0, cache.getSize());
+			conn.rollback();
+			cm.endTransaction(ctx.getDataSource());
+		} finally {
+			conn.setAutoCommit(true);
+			conn.close();
+			ctx.setConnectionManager(null);
+		}
+		Assert.assertEquals(10, countAgeNotLess90(cache));
+		Assert.assertEquals(10, countAgeNotLess90(simple));
+		Assert.assertEquals(0, cache.getHitCount());
+	}
+
 	@Test
 	public void testEntityMapListHandler() {
 		List<Map<String, Object>> result = pQuery(new SSMapListHandler(), DemoUser.class, alias("u"),
@@ -198,6 +342,21 @@ public class SqlHandlersTest extends TestBase {
 		SqlBoxContext.setThreadLocalSqlHandlers(null);
 	}
 
+	@Test
+	public void testPaginBindParams() {
+		gctx().setPaginBindParams(true);
+		try {
+			List<DemoUser> users = pQuery(new EntityListHandler(), DemoUser.class,
+					"select u.* from DemoUser u where u.age>? order by u.age", 0, pagin(2, 5));
+			Assert.assertEquals(5, users.size());
+			Assert.assertEquals(6, (int) users.get(0).getAge());
+			users = eFindAll(DemoUser.class, " where age>?", param(0), pagin(3, 5));
+			Assert.assertEquals(5, users.size());
+		} finally {
+			gctx().setPaginBindParams(false);
+		}
+	}
+
 	@Test
 	public void testPrintSqlHandler() throws SQLException {
 		List<Map<String, Object>> result = pQuery(new MapListHandler(), "select u.* from DemoUser u where u.age>?", 0);
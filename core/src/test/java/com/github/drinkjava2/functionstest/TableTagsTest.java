@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdbpro.TableTags;
+
+/**
+ * Unit test of TableTags
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class TableTagsTest {
+
+	private static String tags(String[] tags) {
+		StringBuilder sb = new StringBuilder();
+		for (String tag : tags)
+			sb.append(sb.length() == 0 ? "" : ",").append(tag);
+		return sb.toString();
+	}
+
+	@Test
+	public void testReadTables() {
+		Assert.assertEquals("users", tags(TableTags.readTables("select * from Users where id=?")));
+		Assert.assertEquals("users,orders,items", tags(TableTags.readTables(
+				"select u.* from users u left join Orders o on u.id=o.uid inner join \"ITEMS\" as i on i.oid=o.id")));
+		Assert.assertEquals("a,b,c", tags(TableTags.readTables("select * from a, b x, myschema.c where a.id=b.id")));
+		Assert.assertEquals("t2,t1", tags(TableTags.readTables(
+				"select * from (select id from t2 where name='from x') tmp where id in (select id from t1) -- from t3")));
+		Assert.assertEquals("", tags(TableTags.readTables("select 1")));
+	}
+
+	@Test
+	public void testWriteTables() {
+		Assert.assertEquals("users", tags(TableTags.writeTables("insert into Users (id, name) values(?,?)")));
+		Assert.assertEquals("users", tags(TableTags.writeTables("INSERT IGNORE INTO `users` (id) values(?)")));
+		Assert.assertEquals("users", tags(TableTags.writeTables("update dbo.users set name=? where id=?")));
+		Assert.assertEquals("users", tags(TableTags.writeTables("delete from users where id=?")));
+		Assert.assertEquals("users", tags(TableTags.writeTables("truncate table users")));
+		Assert.assertNull(TableTags.writeTables("drop table users"));
+		Assert.assertNull(TableTags.writeTables("delete u from users u join orders o on u.id=o.uid"));
+		Assert.assertNull(TableTags.writeTables("update a, b set b.x=? where a.id=b.id"));
+		Assert.assertNull(TableTags.writeTables("update a join b on a.id=b.id set b.x=?"));
+		Assert.assertNull(TableTags.writeTables("update a t inner join b on t.id=b.id set b.x=?"));
+		Assert.assertNull(TableTags.writeTables("delete from a, b using a join b on a.id=b.id"));
+		Assert.assertNull(TableTags.writeTables("truncate table a, b"));
+		Assert.assertEquals("a", tags(TableTags.writeTables("update a as t set x=? where t.id=?")));
+		Assert.assertEquals("a", tags(TableTags.writeTables("delete from a t where t.id=?")));
+	}
+
+	@Test
+	public void testVersions() {
+		String[] tags = TableTags.readTables("select * from tag_test_a a, tag_test_b b");
+		long[] versions = TableTags.versionsOf(tags);
+		Assert.assertTrue(TableTags.isCurrent(tags, versions));
+		TableTags.invalidate(TableTags.writeTables("update tag_test_c set x=1"));
+		Assert.assertTrue(TableTags.isCurrent(tags, versions));
+		new TableTags.Invalidator(TableTags.writeTables("update tag_test_b set x=1")).run();
+		Assert.assertFalse(TableTags.isCurrent(tags, versions));
+
+		versions = TableTags.versionsOf(tags);
+		TableTags.invalidate(TableTags.writeTables("create table tag_test_d (id int)"));
+		Assert.assertFalse(TableTags.isCurrent(tags, versions));
+	}
+}
@@ -5,7 +5,10 @@ import static com.github.drinkjava2.jsqlbox.JSQLBOX.AUTO_SQL;
 import static com.github.drinkjava2.jsqlbox.JSQLBOX.alias;
 import static com.github.drinkjava2.jsqlbox.JSQLBOX.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -22,6 +25,9 @@ import com.github.drinkjava2.functionstest.entitynet.entities.Role;
 import com.github.drinkjava2.functionstest.entitynet.entities.RolePrivilege;
 import com.github.drinkjava2.functionstest.entitynet.entities.User;
 import com.github.drinkjava2.functionstest.entitynet.entities.UserRole;
+import com.github.drinkjava2.jdbpro.DefaultOrderSqlHandler;
+import com.github.drinkjava2.jdbpro.ImprovedQueryRunner;
+import com.github.drinkjava2.jdbpro.PreparedSQL;
 import com.github.drinkjava2.jsqlbox.entitynet.EntityNet;
 import com.github.drinkjava2.jsqlbox.handler.EntityNetHandler;
 
@@ -251,6 +257,82 @@ public class EntityNetTest extends TestBase {
 		}
 	}
 
+	@Test
+	public void testBatchLoad() {
+		insertDemoData();
+		List<User> users = ctx.eFindAll(User.class);
+		Map<Object, List<Privilege>> privilegeMap = ctx.eFindRelatedBatch(users, User.class, UserRole.class,
+				Role.class, RolePrivilege.class, Privilege.class);
+		Assert.assertEquals(5, privilegeMap.size());
+		for (User u : users) {
+			Set<Privilege> expected = u.findRelatedSet(UserRole.class, Role.class, RolePrivilege.class,
+					Privilege.class);
+			Assert.assertEquals(privilegeIds(expected), privilegeIds(privilegeMap.get(u)));
+		}
+
+		Map<Object, List<Email>> emailMap = ctx.eFindRelatedBatch(users, User.class, Email.class);
+		for (User u : users)
+			Assert.assertEquals(u.findRelatedList(Email.class).size(), emailMap.get(u).size());
+
+		// Iterable also accepted by eFindRelatedList, only 1 SQL sent
+		List<UserRole> userRoles = ctx.eFindAll(UserRole.class);
+		List<Role> roles = ctx.eFindRelatedList(userRoles, UserRole.class, Role.class);
+		Assert.assertEquals(4, roles.size());
+		Map<Object, List<Role>> roleMap = ctx.eFindRelatedBatch(userRoles, UserRole.class, Role.class);
+		for (UserRole ur : userRoles)
+			Assert.assertEquals(ur.getRid(), roleMap.get(ur).get(0).getId());
+	}
+
+	/** Record params count of each SQL */
+	public static class ParamsCountHandler extends DefaultOrderSqlHandler {
+		List<Integer> paramsCounts = new ArrayList<Integer>();
+
+		@Override
+		public Object handle(ImprovedQueryRunner runner, PreparedSQL ps) {
+			paramsCounts.add(ps.getParams() == null ? 0 : ps.getParams().length);
+			return runner.runPreparedSQL(ps);
+		}
+	}
+
+	@Test
+	public void testBatchLoadParamsLimit() {
+		insertDemoData();
+		List<User> users = ctx.eFindAll(User.class);
+		Assert.assertEquals(5, users.size());
+		int maxParameters = ctx.getDialect().getMaxParameters();
+		// sqlItems use (maxParameters - 2) params, so only 2 users can be in each SQL
+		StringBuilder sb = new StringBuilder(" and e.id not in (");
+		List<Object> items = new ArrayList<Object>();
+		for (int i = 0; i < maxParameters - 2; i++) {
+			sb.append(i == 0 ? "?" : ",?");
+			items.add(param("none" + i));
+		}
+		items.add(0, sb.append(")").toString());
+		ParamsCountHandler handler = new ParamsCountHandler();
+		Map<Object, List<Email>> emailMap = ctx.eFindRelatedBatch(users, User.class, Email.class, handler,
+				items.toArray());
+		Assert.assertEquals(3, handler.paramsCounts.size()); // 3 chunks: 2, 2, 1 users, 1 SQL for each
+		Assert.assertEquals(maxParameters, (int) handler.paramsCounts.get(0));
+		Assert.assertEquals(maxParameters, (int) handler.paramsCounts.get(1));
+		Assert.assertEquals(maxParameters - 1, (int) handler.paramsCounts.get(2));
+		for (User u : users)
+			Assert.assertEquals(u.findRelatedList(Email.class).size(), emailMap.get(u).size());
+
+		// Counting params should not consume thread-local handlers
+		ParamsCountHandler threaded = new ParamsCountHandler();
+		ImprovedQueryRunner.setThreadLocalSqlHandlers(threaded);
+		ctx.eFindRelatedBatch(users, User.class, Email.class, items.toArray());
+		Assert.assertEquals(1, threaded.paramsCounts.size());
+		Assert.assertEquals(maxParameters, (int) threaded.paramsCounts.get(0));
+	}
+
+	private static Set<String> privilegeIds(Collection<Privilege> privileges) {
+		Set<String> ids = new HashSet<String>();
+		for (Privilege p : privileges)
+			ids.add(p.getId());
+		return ids;
+	}
+
 	@Test
 	public void testNoSqlQuery() {
 		insertDemoData();
@@ -282,6 +364,12 @@ public class EntityNetTest extends TestBase {
 		if (privileges != null)
 			for (Privilege privilege : privileges)
 				System.out.println("  Privilege:" + privilege.getId());
+
+		// Search in EntityNet should get same result as search in database
+		Assert.assertEquals(u.findRelatedList(Email.class).size(), emails.size());
+		Assert.assertEquals(u.findRelatedSet(UserRole.class, Role.class).size(), roles.size());
+		Assert.assertEquals(u.findRelatedSet(path).size(), privileges.size());
+		Assert.assertEquals(addr.getId(), ((Address) u.findRelatedOne(Address.class)).getId());
 	}
 
 	@Test
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest.jdialects;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdialects.BeanAccessor;
+import com.github.drinkjava2.jdialects.DialectException;
+import com.github.drinkjava2.jdialects.TableModelUtils;
+import com.github.drinkjava2.jdialects.annotation.jpa.Column;
+import com.github.drinkjava2.jdialects.annotation.jpa.Id;
+import com.github.drinkjava2.jdialects.annotation.jpa.Transient;
+import com.github.drinkjava2.jdialects.model.TableModel;
+
+/**
+ * Unit test of BeanAccessor
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class BeanAccessorTest {
+
+	public static class Foo {
+		@Id
+		private Integer id;
+
+		@Column(name = "foo_name")
+		private String name;
+
+		@Transient
+		private String memo;
+
+		public Integer getId() {
+			return id;
+		}
+
+		public void setId(Integer id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public Foo setName(String name) {// link style setter
+			this.name = name;
+			return this;
+		}
+
+		public String getMemo() {
+			return memo;
+		}
+
+		public void setMemo(String memo) {
+			this.memo = memo;
+		}
+	}
+
+	@Test
+	public void testReadWrite() {
+		BeanAccessor accessor = BeanAccessor.of(Foo.class);
+		Assert.assertSame(accessor, BeanAccessor.of(Foo.class));
+		Foo foo = new Foo();
+		accessor.writeValue(foo, "id", 1);
+		accessor.writeValue(foo, accessor.indexOf("name"), "Tom");
+		Assert.assertEquals(1, accessor.readValue(foo, accessor.indexOf("id")));
+		Assert.assertEquals("Tom", accessor.readValue(foo, "name"));
+		Assert.assertEquals(-1, accessor.indexOf("notExist"));
+	}
+
+	@Test
+	public void testIndexesOfColumns() {
+		TableModel model = TableModelUtils.entity2ReadOnlyModel(Foo.class);
+		BeanAccessor accessor = BeanAccessor.of(Foo.class);
+		int[] indexes = accessor.indexesOf(model.getColumns());
+		Assert.assertEquals(model.getColumns().size(), indexes.length);
+		for (int i = 0; i < indexes.length; i++) {
+			String field = model.getColumns().get(i).getEntityField();
+			if (model.getColumns().get(i).getTransientable())
+				Assert.assertEquals(-1, indexes[i]);
+			else
+				Assert.assertEquals(field, accessor.getFieldNames()[indexes[i]]);
+		}
+	}
+
+	@Test(expected = DialectException.class)
+	public void testWriteNotExistField() {
+		BeanAccessor.of(Foo.class).writeValue(new Foo(), "notExist", 1);
+	}
+
+}
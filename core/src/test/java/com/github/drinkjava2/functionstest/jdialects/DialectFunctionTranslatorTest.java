@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest.jdialects;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdialects.Dialect;
+import com.github.drinkjava2.jdialects.DialectFunctionTranslator;
+
+/**
+ * Unit test of DialectFunctionTranslator cache
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class DialectFunctionTranslatorTest {
+	private static final String SQL = "select concat('a', name), sin(1), fn_concat('a', name) from users";
+
+	@Test
+	public void testCache() {
+		DialectFunctionTranslator translator = new DialectFunctionTranslator();
+		String sqlServer = translator.doTranslate(Dialect.SQLServer2012Dialect, SQL);
+		Assert.assertEquals("select ('a'+ name), sin(1), fn_concat('a', name) from users", sqlServer);
+		Assert.assertEquals(sqlServer, translator.doTranslate(Dialect.SQLServer2012Dialect, SQL));
+		Assert.assertEquals(1, translator.getCacheHitCount());
+		Assert.assertEquals(1, translator.getCacheMissCount());
+
+		// Cached by dialect
+		Assert.assertNotEquals(sqlServer, translator.doTranslate(Dialect.MySQL55Dialect, SQL));
+		Assert.assertEquals(2, translator.getCacheMissCount());
+
+		// Changed function prefix make cached result invalid
+		Dialect.setGlobalSqlFunctionPrefix("fn_");
+		try {
+			Assert.assertEquals("select concat('a', name), sin(1), ('a'+ name) from users",
+					translator.doTranslate(Dialect.SQLServer2012Dialect, SQL));
+			Assert.assertEquals(1, translator.getCacheHitCount());
+		} finally {
+			Dialect.setGlobalSqlFunctionPrefix(null);
+		}
+
+		translator.clearCache();
+		Assert.assertEquals(sqlServer, translator.doTranslate(Dialect.SQLServer2012Dialect, SQL));
+		Assert.assertEquals(1, translator.getCacheHitCount());
+	}
+
+	@Test
+	public void testCacheEviction() {
+		DialectFunctionTranslator translator = new DialectFunctionTranslator();
+		for (int i = 0; i < 2000; i++)// one-off SQLs
+			translator.doTranslate(Dialect.MySQL55Dialect, "select " + i + " from users");
+		Assert.assertEquals(0, translator.getCacheHitCount());
+		for (int i = 0; i < 3; i++)// SQL seen after cache full is still cached
+			translator.doTranslate(Dialect.MySQL55Dialect, SQL);
+		Assert.assertEquals(2, translator.getCacheHitCount());
+		Assert.assertEquals(2001, translator.getCacheMissCount());
+	}
+
+	@Test
+	public void testFunctionMap() {
+		try {
+			DialectFunctionTranslator.instance.getFunctionMap().put("FOO", 1);
+			Assert.fail("Function map should be unmodifiable");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+		Map<String, Integer> functions = new HashMap<String, Integer>();
+		functions.put("SIN", 100);
+		DialectFunctionTranslator translator = new DialectFunctionTranslator(functions);
+		functions.put("CONCAT", 100);
+		Assert.assertEquals(1, translator.getFunctionMap().size());
+		Assert.assertEquals("select concat('a', name) from users",
+				translator.doTranslate(Dialect.SQLServer2012Dialect, "select concat('a', name) from users"));
+
+		// Deprecated setter copy the map and clear cache
+		Assert.assertEquals("select ('a'+ name) from users", new DialectFunctionTranslator()
+				.doTranslate(Dialect.SQLServer2012Dialect, "select concat('a', name) from users"));
+		translator.setFunctionMap(functions);
+		functions.clear();
+		Assert.assertEquals(2, translator.getFunctionMap().size());
+		Assert.assertEquals("select ('a'+ name) from users",
+				translator.doTranslate(Dialect.SQLServer2012Dialect, "select concat('a', name) from users"));
+
+		try {
+			Dialect.SQLServer2012Dialect.getFunctions().put("concat", "x");
+			Assert.fail("Dialect functions should be unmodifiable");
+		} catch (UnsupportedOperationException e) {
+			// expected
+		}
+	}
+}
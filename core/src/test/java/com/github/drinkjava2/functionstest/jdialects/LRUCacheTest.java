@@ -0,0 +1,45 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest.jdialects;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdialects.LRUCache;
+
+/**
+ * Unit test of LRUCache
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class LRUCacheTest {
+
+	@Test
+	public void testEviction() {
+		LRUCache<String, Integer> cache = new LRUCache<String, Integer>(3);
+		cache.put("hot", 0);
+		for (int i = 0; i < 100; i++) {// one-off keys do not flush out recently used key
+			Assert.assertEquals(0, (int) cache.get("hot"));
+			cache.put("key" + i, i);
+		}
+		Assert.assertEquals(3, cache.size());
+		Assert.assertEquals(99, (int) cache.get("key99"));
+		Assert.assertNull(cache.get("key0"));
+
+		// keys seen after cache is full are still cached
+		cache.put("late", 1);
+		Assert.assertEquals(1, (int) cache.get("late"));
+		cache.clear();
+		Assert.assertEquals(0, cache.size());
+	}
+}
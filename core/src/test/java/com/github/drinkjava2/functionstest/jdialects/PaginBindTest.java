@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest.jdialects;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdialects.Dialect;
+
+/**
+ * Unit test of Dialect.paginBind
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class PaginBindTest {
+
+	private static String paginBind(Dialect dialect, int pageNumber, String sql) {
+		List<Object> values = new ArrayList<Object>();
+		String result = dialect.paginBind(pageNumber, 10, sql, values);
+		return result + " " + values;
+	}
+
+	@Test
+	public void testPaginBind() {
+		String sql = "select * from users where age>? order by id";
+		Assert.assertEquals("select * from users where age>? order by id limit ?, ? [20, 10]",
+				paginBind(Dialect.MySQL55Dialect, 3, sql));
+		Assert.assertEquals("select * from users where age>? order by id limit ? [10]",
+				paginBind(Dialect.MySQL55Dialect, 1, sql));
+		Assert.assertEquals(Dialect.MySQL55Dialect.paginBind(3, 10, sql, new ArrayList<Object>()),
+				Dialect.MySQL55Dialect.paginBind(4, 10, sql, new ArrayList<Object>()));
+		Assert.assertEquals(
+				"select * from ( select row_.*, rownum rownum_ from ( select * from users where age>? order by id ) row_ where rownum <= ?) where rownum_ > ? [30, 20]",
+				paginBind(Dialect.Oracle10gDialect, 3, sql));
+		// values before SQL body are inlined
+		Assert.assertEquals(Dialect.SQLServer2005Dialect.pagin(1, 10, sql) + " []",
+				paginBind(Dialect.SQLServer2005Dialect, 1, sql));
+
+		// inline mode not changed
+		Assert.assertEquals("select * from users where age>? order by id limit 20, 10",
+				Dialect.MySQL55Dialect.pagin(3, 10, sql));
+	}
+
+	@Test
+	public void testCachedSkeleton() {
+		String sql = "select * from users where name=? order by id";
+		for (int i = 0; i < 3; i++) { // skeleton cached at first time, reused by inline and bind mode
+			Assert.assertEquals("select * from users where name=? order by id limit 10 offset 20",
+					Dialect.PostgreSQL95Dialect.pagin(3, 10, sql));
+			Assert.assertEquals("select * from users where name=? order by id limit ? offset ? [10, 20]",
+					paginBind(Dialect.PostgreSQL95Dialect, 3, sql));
+			Assert.assertEquals("select * from users where name=? order by id limit 10",
+					Dialect.PostgreSQL95Dialect.pagin(1, 10, sql));
+		}
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest.jdialects;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdialects.id.SnowflakeCreator;
+
+/**
+ * Unit test of SnowflakeCreator
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class SnowflakeCreatorTest {
+
+	/** A SnowflakeCreator use a manual clock */
+	public static class ManualClockCreator extends SnowflakeCreator {
+		long now = 1500000000000L;
+
+		public ManualClockCreator() {
+			super(5, 5, 1, 2);
+		}
+
+		@Override
+		protected long timestampGen() {
+			return now;
+		}
+	}
+
+	@Test
+	public void testMultiThreadUnique() throws InterruptedException {
+		final SnowflakeCreator snow = new SnowflakeCreator(5, 5, 1, 2);
+		final Set<Long> ids = Collections.synchronizedSet(new HashSet<Long>());
+		final List<String> failures = Collections.synchronizedList(new ArrayList<String>());
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					try {
+						long last = -1;
+						for (int i = 0; i < 20000; i++) {
+							long id = snow.nextId();
+							if (id <= last)
+								failures.add(getName() + ": id " + id + " not greater than " + last);
+							last = id;
+							ids.add(id);
+						}
+						for (long id : snow.nextIds(5000))
+							ids.add(id);
+					} catch (Throwable e) {
+						failures.add(getName() + ": " + e);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		Assert.assertTrue(failures.toString(), failures.isEmpty()); // worker thread can not fail the test
+		Assert.assertEquals(8 * 25000, ids.size());
+		long[] arr = snow.parseId(snow.nextId());
+		Assert.assertEquals(1L, arr[1]);
+		Assert.assertEquals(2L, arr[2]);
+	}
+
+	@Test
+	public void testNextIds() {
+		ManualClockCreator snow = new ManualClockCreator();
+		snow.setMaxBackwardMillis(10);
+		long first = snow.nextId();
+		long[] ids = snow.nextIds(10000); // more than 4096, borrow future milliseconds
+		Assert.assertTrue(ids[0] > first);
+		for (int i = 1; i < ids.length; i++)
+			Assert.assertTrue(ids[i] > ids[i - 1]);
+		Assert.assertEquals(2L, snow.parseId(ids[ids.length - 1])[4] - snow.parseId(first)[4]);
+	}
+
+	@Test
+	public void testClockBackward() {
+		ManualClockCreator snow = new ManualClockCreator();
+		long id1 = snow.nextId();
+		snow.now -= 5;
+		try {
+			snow.nextId();
+			Assert.fail("Should throw IllegalStateException");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+		snow.setMaxBackwardMillis(5);
+		long id2 = snow.nextId();
+		Assert.assertTrue(id2 > id1);
+		Assert.assertEquals(snow.parseId(id1)[0], snow.parseId(id2)[0]);
+	}
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest.jdialects;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdialects.model.ColumnModel;
+import com.github.drinkjava2.jdialects.model.TableModel;
+
+/**
+ * Test TableModel's column indexes be kept same as columns
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class TableModelColumnIndexTest {
+
+	@Test
+	public void testColumnIndexes() {
+		TableModel t = new TableModel("t");
+		t.column("ID").LONG().pkey();
+		t.column("user_name").STRING(10).entityField("userName");
+		Assert.assertEquals("ID", t.getColumnByColName("id").getColumnName());
+		Assert.assertEquals("user_name", t.getColumnByFieldName("USERNAME").getColumnName());
+		Assert.assertEquals("user_name", t.getColumn("username").getColumnName());
+		Assert.assertEquals(1, t.getPKeyCount());
+		Assert.assertNull(t.getShardTableColumn());
+
+		t.getColumnByColName("user_name").setColumnName("name2");
+		Assert.assertNull(t.getColumnByColName("user_name"));
+		Assert.assertNotNull(t.getColumnByColName("NAME2"));
+
+		t.getColumns().add(new ColumnModel("direct_added"));// change list directly
+		Assert.assertNotNull(t.getColumnByColName("direct_added"));
+
+		t.column("age").INTEGER().shardTable("MOD", "3");
+		Assert.assertEquals("age", t.getShardTableColumn().getColumnName());
+		t.removeColumn("age");
+		Assert.assertNull(t.getColumnByColName("age"));
+		Assert.assertNull(t.getShardTableColumn());
+
+		t.setReadOnly(true);
+		Assert.assertEquals("ID", t.getFirstPKeyColumn().getColumnName());
+		Assert.assertNotNull(t.getColumn("userName"));
+	}
+
+}
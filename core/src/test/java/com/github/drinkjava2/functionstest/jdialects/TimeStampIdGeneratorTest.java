@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest.jdialects;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdialects.id.TimeStampIdGenerator;
+
+/**
+ * Unit test of TimeStampIdGenerator
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class TimeStampIdGeneratorTest {
+
+	@Test
+	public void testMultiThreadUniqueAndSpeed() throws InterruptedException {
+		final int threadCount = 8;
+		final int idsPerThread = 250000;
+		final long[][] results = new long[threadCount][idsPerThread];
+		Thread[] threads = new Thread[threadCount];
+		for (int t = 0; t < threadCount; t++) {
+			final long[] ids = results[t];
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < idsPerThread; i++)
+						ids[i] = (Long) TimeStampIdGenerator.INSTANCE.getNextID(null, null, null);
+				}
+			};
+		}
+		long start = System.currentTimeMillis();
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		long time = System.currentTimeMillis() - start;
+		System.out.println("TimeStampIdGenerator created " + threadCount * idsPerThread + " ids in " + time + "ms");
+
+		Set<Long> all = new HashSet<Long>(threadCount * idsPerThread * 2);
+		for (long[] ids : results) {
+			for (int i = 0; i < ids.length; i++) {
+				if (i > 0)
+					Assert.assertTrue(ids[i] > ids[i - 1]);
+				all.add(ids[i]);
+			}
+		}
+		Assert.assertEquals(threadCount * idsPerThread, all.size());
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.functionstest.jdialects;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.github.drinkjava2.jdialects.id.UUID25Generator;
+import com.github.drinkjava2.jdialects.id.UUIDAnyGenerator;
+import com.github.drinkjava2.jdialects.id.UUIDCreator;
+
+/**
+ * Unit test of UUIDCreator
+ *
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class UUIDCreatorTest {
+
+	@Test
+	public void testFormat() {
+		for (int i = 0; i < 1000; i++) {
+			String s = UUIDCreator.uuid36();
+			UUID uuid = UUID.fromString(s);
+			Assert.assertEquals(4, uuid.version());
+			Assert.assertEquals(2, uuid.variant());
+			Assert.assertEquals(s, uuid.toString());
+			String s32 = UUIDCreator.uuid32();
+			Assert.assertTrue(s32.matches("[0-9a-f]{12}4[0-9a-f]{3}[89ab][0-9a-f]{15}"));
+			Assert.assertTrue(UUIDCreator.uuid25().matches("[0-9a-z]{25}"));
+			Assert.assertTrue(UUIDCreator.uuidAny(100).matches("[0-9a-z]{100}"));
+		}
+	}
+
+	@Test
+	public void testBulk() {
+		Assert.assertEquals(0, UUIDCreator.uuid32s(0).length);
+		List<Object> ids = UUID25Generator.INSTANCE.getNextIDs(null, null, null, 500);
+		Assert.assertEquals(500, new HashSet<Object>(ids).size());
+		for (Object id : ids)
+			Assert.assertEquals(25, ((String) id).length());
+		ids = new UUIDAnyGenerator("any", 40).getNextIDs(null, null, null, 20);
+		Assert.assertEquals(20, ids.size());
+		Assert.assertEquals(40, ((String) ids.get(19)).length());
+	}
+
+	@Test
+	public void testMultiThreadUnique() throws InterruptedException {
+		final Set<String> ids = Collections.synchronizedSet(new HashSet<String>());
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final boolean uuid36 = t % 2 == 0;
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 5000; i++) {
+						ids.add(UUIDCreator.uuid32());
+						ids.add(UUIDCreator.uuid25());
+					}
+					Collections.addAll(ids, uuid36 ? UUIDCreator.uuid36s(5000) : UUIDCreator.uuidAnys(20, 5000));
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		Assert.assertEquals(8 * 15000, ids.size());
+	}
+
+	@Test
+	public void testFastRandom() {
+		boolean old = UUIDCreator.isSecureRandom();
+		UUIDCreator.setSecureRandom(false);
+		try {
+			Set<String> ids = new HashSet<String>();
+			for (int i = 0; i < 1000; i++)
+				ids.add(UUIDCreator.uuid36());
+			Assert.assertEquals(1000, ids.size());
+		} finally {
+			UUIDCreator.setSecureRandom(old);
+		}
+	}
+}
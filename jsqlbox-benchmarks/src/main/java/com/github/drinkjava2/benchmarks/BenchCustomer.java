@@ -0,0 +1,68 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.benchmarks;
+
+import java.util.List;
+
+import com.github.drinkjava2.jdialects.annotation.jpa.Id;
+import com.github.drinkjava2.jdialects.annotation.jpa.Table;
+
+/**
+ * Parent entity of {@link BenchOrder}, used by EntityNet benchmarks
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+@Table(name = "bench_customer")
+public class BenchCustomer {
+	@Id
+	private Integer id;
+
+	private String code;
+
+	private String name;
+
+	private List<BenchOrder> benchOrderList;
+
+	public Integer getId() {
+		return id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public String getCode() {
+		return code;
+	}
+
+	public void setCode(String code) {
+		this.code = code;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public List<BenchOrder> getBenchOrderList() {
+		return benchOrderList;
+	}
+
+	public void setBenchOrderList(List<BenchOrder> benchOrderList) {
+		this.benchOrderList = benchOrderList;
+	}
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.drinkjava2.jsqlbox.SqlBoxContext;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * BenchDatabase create an in-memory H2 database, build benchmark tables and
+ * fill test data, each benchmark trial use a new database so results of
+ * different benchmarks do not disturb each other
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+public class BenchDatabase {
+	private static final AtomicInteger dbCount = new AtomicInteger();
+
+	/** How many rows inserted into bench_user table */
+	public static final int USER_ROWS = 1000;
+
+	/** How many rows inserted into bench_customer table */
+	public static final int CUSTOMER_ROWS = 100;
+
+	/** How many orders each customer has */
+	public static final int ORDERS_PER_CUSTOMER = 5;
+
+	private HikariDataSource dataSource;
+	private SqlBoxContext ctx;
+
+	public BenchDatabase() {
+		dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:h2:mem:jsqlbox_bench" + dbCount.incrementAndGet()
+				+ ";MODE=MYSQL;TRACE_LEVEL_SYSTEM_OUT=0");
+		dataSource.setDriverClassName("org.h2.Driver");
+		dataSource.setUsername("sa");
+		dataSource.setPassword("");
+		dataSource.setMaximumPoolSize(8);
+		dataSource.setConnectionTimeout(2000);
+		SqlBoxContext.resetGlobalVariants();
+		ctx = new SqlBoxContext(dataSource);
+		for (String ddl : ctx.toCreateDDL(BenchUser.class, BenchCustomer.class, BenchOrder.class))
+			ctx.nExecute(ddl);
+		fillData();
+	}
+
+	private void fillData() {
+		Connection conn = null;
+		try {
+			conn = dataSource.getConnection();
+			PreparedStatement pst = conn.prepareStatement("insert into bench_user (id, name, address, age) values(?,?,?,?)");
+			for (int i = 1; i <= USER_ROWS; i++) {
+				pst.setInt(1, i);
+				pst.setString(2, "Name" + i);
+				pst.setString(3, "Address" + i);
+				pst.setInt(4, i % 100);
+				pst.addBatch();
+			}
+			pst.executeBatch();
+			pst.close();
+			pst = conn.prepareStatement("insert into bench_customer (id, code, name) values(?,?,?)");
+			for (int i = 1; i <= CUSTOMER_ROWS; i++) {
+				pst.setInt(1, i);
+				pst.setString(2, "C" + i);
+				pst.setString(3, "Customer" + i);
+				pst.addBatch();
+			}
+			pst.executeBatch();
+			pst.close();
+			pst = conn.prepareStatement("insert into bench_order (id, name, cust_id) values(?,?,?)");
+			int orderId = 1;
+			for (int i = 1; i <= CUSTOMER_ROWS; i++)
+				for (int j = 0; j < ORDERS_PER_CUSTOMER; j++) {
+					pst.setInt(1, orderId);
+					pst.setString(2, "Order" + orderId++);
+					pst.setInt(3, i);
+					pst.addBatch();
+				}
+			pst.executeBatch();
+			pst.close();
+		} catch (SQLException e) {
+			throw new IllegalStateException("Fail to fill benchmark data", e);
+		} finally {
+			close(conn);
+		}
+	}
+
+	public static void close(Connection conn) {
+		if (conn != null)
+			try {
+				conn.close();
+			} catch (SQLException e) {
+				throw new IllegalStateException(e);
+			}
+	}
+
+	public void shutdown() {
+		dataSource.close(); // in-memory H2 database dropped when last connection closed
+		SqlBoxContext.resetGlobalVariants();
+	}
+
+	public HikariDataSource getDataSource() {
+		return dataSource;
+	}
+
+	public SqlBoxContext getCtx() {
+		return ctx;
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.benchmarks;
+
+import com.github.drinkjava2.jdialects.annotation.jdia.SingleFKey;
+import com.github.drinkjava2.jdialects.annotation.jpa.Column;
+import com.github.drinkjava2.jdialects.annotation.jpa.Id;
+import com.github.drinkjava2.jdialects.annotation.jpa.Table;
+
+/**
+ * Child entity of {@link BenchCustomer}, used by EntityNet benchmarks
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+@Table(name = "bench_order")
+public class BenchOrder {
+	@Id
+	private Integer id;
+
+	private String name;
+
+	@Column(name = "cust_id")
+	@SingleFKey(refs = { "bench_customer", "id" })
+	private Integer custId;
+
+	private BenchCustomer benchCustomer;
+
+	public Integer getId() {
+		return id;
+	}
+
+	public void setId(Integer id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public Integer getCustId() {
+		return custId;
+	}
+
+	public void setCustId(Integer custId) {
+		this.custId = custId;
+	}
+
+	public BenchCustomer getBenchCustomer() {
+		return benchCustomer;
+	}
+
+	public void setBenchCustomer(BenchCustomer benchCustomer) {
+		this.benchCustomer = benchCustomer;
+	}
+
+}
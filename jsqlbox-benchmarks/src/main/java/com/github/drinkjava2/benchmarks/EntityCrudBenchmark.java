@@ -0,0 +1,201 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.benchmarks;
+
+import static com.github.drinkjava2.jdbpro.JDBPRO.param;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.drinkjava2.jsqlbox.SqlBoxContext;
+
+/**
+ * Entity CRUD methods of SqlBoxContext compare to raw JDBC, the difference
+ * between xxx and jdbcXxx is the framework overhead
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityCrudBenchmark {
+	private static final int INSERT_ID_START = 10000000;
+
+	private BenchDatabase db;
+	private SqlBoxContext ctx;
+	private DataSource ds;
+	private int insertId;
+	private int loadId;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		db = new BenchDatabase();
+		ctx = db.getCtx();
+		ds = db.getDataSource();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		db.shutdown();
+	}
+
+	@Setup(Level.Iteration)
+	public void resetInsertedRows() {
+		ctx.nExecute("delete from bench_user where id>=?", INSERT_ID_START);
+		insertId = INSERT_ID_START;
+	}
+
+	private int nextLoadId() {
+		loadId = loadId % BenchDatabase.USER_ROWS + 1;
+		return loadId;
+	}
+
+	private static BenchUser newUser(int id) {
+		BenchUser u = new BenchUser();
+		u.setId(id);
+		u.setName("Name" + id);
+		u.setAddress("Address" + id);
+		u.setAge(id % 100);
+		return u;
+	}
+
+	@Benchmark
+	public BenchUser eInsert() {
+		return ctx.eInsert(newUser(insertId++));
+	}
+
+	@Benchmark
+	public int jdbcInsert() throws SQLException {
+		BenchUser u = newUser(insertId++);
+		Connection conn = ds.getConnection();
+		try {
+			PreparedStatement pst = conn
+					.prepareStatement("insert into bench_user (id, name, address, age) values(?,?,?,?)");
+			pst.setInt(1, u.getId());
+			pst.setString(2, u.getName());
+			pst.setString(3, u.getAddress());
+			pst.setInt(4, u.getAge());
+			int result = pst.executeUpdate();
+			pst.close();
+			return result;
+		} finally {
+			conn.close();
+		}
+	}
+
+	@Benchmark
+	public BenchUser eLoadById() {
+		return ctx.eLoadById(BenchUser.class, nextLoadId());
+	}
+
+	@Benchmark
+	public BenchUser jdbcLoadById() throws SQLException {
+		Connection conn = ds.getConnection();
+		try {
+			PreparedStatement pst = conn
+					.prepareStatement("select id, name, address, age from bench_user where id=?");
+			pst.setInt(1, nextLoadId());
+			ResultSet rs = pst.executeQuery();
+			BenchUser u = null;
+			if (rs.next())
+				u = readUser(rs);
+			rs.close();
+			pst.close();
+			return u;
+		} finally {
+			conn.close();
+		}
+	}
+
+	@Benchmark
+	public BenchUser eUpdate() {
+		BenchUser u = newUser(nextLoadId());
+		return ctx.eUpdate(u);
+	}
+
+	@Benchmark
+	public int jdbcUpdate() throws SQLException {
+		BenchUser u = newUser(nextLoadId());
+		Connection conn = ds.getConnection();
+		try {
+			PreparedStatement pst = conn
+					.prepareStatement("update bench_user set name=?, address=?, age=? where id=?");
+			pst.setString(1, u.getName());
+			pst.setString(2, u.getAddress());
+			pst.setInt(3, u.getAge());
+			pst.setInt(4, u.getId());
+			int result = pst.executeUpdate();
+			pst.close();
+			return result;
+		} finally {
+			conn.close();
+		}
+	}
+
+	@Benchmark
+	public List<BenchUser> eFindAll() {
+		return ctx.eFindAll(BenchUser.class, " where id<=?", param(100));
+	}
+
+	@Benchmark
+	public List<BenchUser> jdbcFindAll() throws SQLException {
+		Connection conn = ds.getConnection();
+		try {
+			PreparedStatement pst = conn
+					.prepareStatement("select id, name, address, age from bench_user where id<=?");
+			pst.setInt(1, 100);
+			ResultSet rs = pst.executeQuery();
+			List<BenchUser> result = new ArrayList<BenchUser>();
+			while (rs.next())
+				result.add(readUser(rs));
+			rs.close();
+			pst.close();
+			return result;
+		} finally {
+			conn.close();
+		}
+	}
+
+	private static BenchUser readUser(ResultSet rs) throws SQLException {
+		BenchUser u = new BenchUser();
+		u.setId(rs.getInt(1));
+		u.setName(rs.getString(2));
+		u.setAddress(rs.getString(3));
+		u.setAge(rs.getInt(4));
+		return u;
+	}
+
+}
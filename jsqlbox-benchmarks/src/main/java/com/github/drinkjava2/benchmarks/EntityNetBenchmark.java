@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.benchmarks;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.drinkjava2.jsqlbox.SqlBoxContext;
+import com.github.drinkjava2.jsqlbox.entitynet.EntityNet;
+
+/**
+ * EntityNet assembly of a customer/order left join compare to raw JDBC with
+ * hand written HashMap based assembly
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EntityNetBenchmark {
+	private BenchDatabase db;
+	private SqlBoxContext ctx;
+	private DataSource ds;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		db = new BenchDatabase();
+		ctx = db.getCtx();
+		ds = db.getDataSource();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		db.shutdown();
+	}
+
+	@Benchmark
+	public List<BenchOrder> entityNet() {
+		EntityNet net = ctx.autoNet(BenchOrder.class, BenchCustomer.class);
+		return net.pickEntityList(BenchOrder.class);
+	}
+
+	@Benchmark
+	public List<BenchOrder> jdbcAssembly() throws SQLException {
+		Connection conn = ds.getConnection();
+		try {
+			PreparedStatement pst = conn.prepareStatement(
+					"select o.id, o.name, o.cust_id, c.id, c.code, c.name from bench_order o left join bench_customer c on o.cust_id=c.id");
+			ResultSet rs = pst.executeQuery();
+			Map<Integer, BenchOrder> orders = new LinkedHashMap<Integer, BenchOrder>();
+			Map<Integer, BenchCustomer> customers = new HashMap<Integer, BenchCustomer>();
+			while (rs.next()) {
+				Integer orderId = rs.getInt(1);
+				BenchOrder order = orders.get(orderId);
+				if (order == null) {
+					order = new BenchOrder();
+					order.setId(orderId);
+					order.setName(rs.getString(2));
+					order.setCustId(rs.getInt(3));
+					orders.put(orderId, order);
+				}
+				Integer custId = (Integer) rs.getObject(4);
+				if (custId == null)
+					continue;
+				BenchCustomer customer = customers.get(custId);
+				if (customer == null) {
+					customer = new BenchCustomer();
+					customer.setId(custId);
+					customer.setCode(rs.getString(5));
+					customer.setName(rs.getString(6));
+					customer.setBenchOrderList(new ArrayList<BenchOrder>());
+					customers.put(custId, customer);
+				}
+				order.setBenchCustomer(customer);
+				if (!customer.getBenchOrderList().contains(order))
+					customer.getBenchOrderList().add(order);
+			}
+			rs.close();
+			pst.close();
+			return new ArrayList<BenchOrder>(orders.values());
+		} finally {
+			conn.close();
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.benchmarks;
+
+import static com.github.drinkjava2.jdbpro.JDBPRO.param;
+import static com.github.drinkjava2.jsqlbox.JSQLBOX.pagin;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.dbutils.handlers.ArrayListHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.drinkjava2.jsqlbox.SqlBoxContext;
+
+/**
+ * iQuery with PaginHandler compare to raw JDBC with hand written pagination SQL
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaginQueryBenchmark {
+	private static final int PAGE_SIZE = 10;
+
+	private BenchDatabase db;
+	private SqlBoxContext ctx;
+	private DataSource ds;
+	private int pageNumber;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		db = new BenchDatabase();
+		ctx = db.getCtx();
+		ds = db.getDataSource();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		db.shutdown();
+	}
+
+	private int nextPage() {
+		pageNumber = pageNumber % 10 + 1;
+		return pageNumber;
+	}
+
+	@Benchmark
+	public List<Object[]> iQueryPagin() {
+		return ctx.iQuery(new ArrayListHandler(), pagin(nextPage(), PAGE_SIZE),
+				"select id, name, address, age from bench_user where age>?", param(10), " order by id");
+	}
+
+	@Benchmark
+	public List<Object[]> jdbcPagin() throws SQLException {
+		int page = nextPage();
+		Connection conn = ds.getConnection();
+		try {
+			PreparedStatement pst = conn.prepareStatement(
+					"select id, name, address, age from bench_user where age>? order by id limit " + PAGE_SIZE
+							+ " offset " + (page - 1) * PAGE_SIZE);
+			pst.setInt(1, 10);
+			ResultSet rs = pst.executeQuery();
+			List<Object[]> result = new ArrayList<Object[]>();
+			while (rs.next())
+				result.add(new Object[] { rs.getObject(1), rs.getObject(2), rs.getObject(3), rs.getObject(4) });
+			rs.close();
+			pst.close();
+			return result;
+		} finally {
+			conn.close();
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at http://www.apache.org/licenses/LICENSE-2.0 Unless required by
+ * applicable law or agreed to in writing, software distributed under the
+ * License is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS
+ * OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+package com.github.drinkjava2.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.drinkjava2.jdbpro.PreparedSQL;
+import com.github.drinkjava2.jdbpro.template.BasicSqlTemplate;
+import com.github.drinkjava2.jdialects.Dialect;
+
+/**
+ * Pure CPU benchmarks of SQL text processing: BasicSqlTemplate.render,
+ * Dialect.pagin and Dialect.trans, no database access. Baselines are hand
+ * written StringBuilder code produce same result.
+ * 
+ * @author Yong Zhu
+ * @since 2.0.4
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqlRenderBenchmark {
+	private static final String TEMPLATE = "select id, name, address, age from bench_user where name=:name and age>#{age} and address like #{user.address} order by id";
+	private static final String RENDERED_SQL = "select id, name, address, age from bench_user where name=? and age>? and address like ? order by id";
+	private static final String QUERY_SQL = "select id, name, address, age from bench_user where age>? order by id";
+	private static final String FUNCTION_SQL = "select concat(name, address), lower(name), abs(age), current_date() from bench_user where id=?";
+
+	/** Dialects to test, only used by dialect benchmarks */
+	@State(Scope.Benchmark)
+	public static class DialectState {
+		@Param({ "H2Dialect", "MySQL55Dialect", "Oracle12cDialect", "SQLServer2012Dialect" })
+		public String dialectName;
+
+		private Dialect dialect;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			dialect = Dialect.valueOf(dialectName);
+		}
+	}
+
+	private BasicSqlTemplate template;
+	private Map<String, Object> paramMap;
+	private BenchUser user;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		template = BasicSqlTemplate.instance();
+		user = new BenchUser();
+		user.setAddress("Address%");
+		paramMap = new HashMap<String, Object>();
+		paramMap.put("name", "Tom");
+		paramMap.put("age", 10);
+		paramMap.put("user", user);
+	}
+
+	@Benchmark
+	public PreparedSQL templateRender() {
+		return template.render(TEMPLATE, paramMap, null);
+	}
+
+	@Benchmark
+	public PreparedSQL templateBaseline() {
+		PreparedSQL ps = new PreparedSQL();
+		ps.setSql(RENDERED_SQL);
+		ps.setParams(new Object[] { paramMap.get("name"), paramMap.get("age"),
+				((BenchUser) paramMap.get("user")).getAddress() });
+		return ps;
+	}
+
+	@Benchmark
+	public String dialectPagin(DialectState state) {
+		return state.dialect.pagin(3, 10, QUERY_SQL);
+	}
+
+	@Benchmark
+	public String paginBaseline() {
+		return new StringBuilder(QUERY_SQL.length() + 24).append(QUERY_SQL).append(" limit ").append(10)
+				.append(" offset ").append(20).toString();
+	}
+
+	@Benchmark
+	public String dialectTrans(DialectState state) {
+		return state.dialect.trans(FUNCTION_SQL);
+	}
+
+	@Benchmark
+	public String transBaseline() {
+		return new StringBuilder(FUNCTION_SQL.length()).append(FUNCTION_SQL).toString();
+	}
+
+}
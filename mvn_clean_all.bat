@@ -8,6 +8,11 @@ call mvn clean
 call mvn eclipse:clean
 cd..
 
+cd jsqlbox-benchmarks
+call mvn clean
+call mvn eclipse:clean
+cd..
+
 cd demo
 
 cd jbooox
@@ -6,6 +6,10 @@ cd jsqlbox-java8
 call mvn eclipse:eclipse 
 cd..
 
+cd jsqlbox-benchmarks
+call mvn eclipse:eclipse
+cd..
+
 cd demo
 
 cd jbooox